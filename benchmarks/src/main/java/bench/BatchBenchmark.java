@@ -0,0 +1,54 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// A provisioning-style script of mkdir/cp/rm lines run in batch mode, serially and with -p.
+// Commands per second is three times the directories, divided by the time of one operation.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    @Param({"1000"})
+    public int directories;
+
+    @Param({"1", "4"})
+    public int jobs;
+
+    private Path work;
+    private String script;
+
+    @Setup(Level.Invocation)
+    public void createScript(Tree tree) throws IOException {
+        work = Files.createTempDirectory(tree.root, "batch");
+        Path seed = tree.small.resolve("file0.txt");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < directories; ++i) {
+            Path dir = work.resolve("dir" + i);
+            lines.append("mkdir ").append(dir).append('\n');
+            lines.append("cp ").append(seed).append(' ').append(dir).append('\n');
+            lines.append("rm ").append(dir.resolve("file0.txt")).append('\n');
+        }
+        script = lines.toString();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteWork() throws IOException {
+        Tree.delete(work);
+    }
+
+    @Benchmark
+    public int runScript() throws Throwable {
+        int failures = Shell.run(script, Shell.NULL, jobs);
+        if (failures != 0)
+            throw new IllegalStateException(failures + " commands failed");
+        return failures;
+    }
+}
@@ -0,0 +1,130 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Latency of single commands run through the shell, including parsing and pipe handling.
+// Run with -prof gc to see the allocation rate of each.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandBenchmark {
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup(Tree tree) throws IOException {
+        target = Files.createTempFile(tree.root, "target", ".txt");
+    }
+
+    @Benchmark
+    public int catSmallFile(Tree tree) throws Throwable {
+        return Shell.run("cat " + tree.small.resolve("file0.txt"));
+    }
+
+    @Benchmark
+    public int catHugeFileToFile(Tree tree) throws Throwable {
+        return Shell.run("cat " + tree.huge + " > " + target);
+    }
+
+    @Benchmark
+    public int catHugeFileThroughPipe(Tree tree) throws Throwable {
+        return Shell.run("cat " + tree.huge + " | cat > " + target);
+    }
+
+    @Benchmark
+    public int lsManyFiles(Tree tree) throws Throwable {
+        return Shell.run("ls " + tree.small);
+    }
+
+    @Benchmark
+    public int lsLongSortedBySize(Tree tree) throws Throwable {
+        return Shell.run("ls -lS " + tree.small);
+    }
+
+    @Benchmark
+    public int lsDeepDirectory(Tree tree) throws Throwable {
+        return Shell.run("ls " + tree.deep);
+    }
+
+    @Benchmark
+    public int lsWildcard(Tree tree) throws Throwable {
+        return Shell.run("ls " + tree.small + "/file*7.log");
+    }
+
+    @Benchmark
+    public int grepFixedHugeFile(Tree tree) throws Throwable {
+        return Shell.run("grep -c -F application " + tree.huge);
+    }
+
+    @Benchmark
+    public int grepRegexHugeFile(Tree tree) throws Throwable {
+        return Shell.run("grep -c \"INFO .*appl\" " + tree.huge);
+    }
+
+    @Benchmark
+    public int grepThroughPipe(Tree tree) throws Throwable {
+        return Shell.run("cat " + tree.huge + " | grep -c -F ERROR");
+    }
+
+    @Benchmark
+    public int grepManyFiles(Tree tree) throws Throwable {
+        return Shell.run("grep -r -c -F x " + tree.small);
+    }
+
+    @Benchmark
+    public int findByName(Tree tree) throws Throwable {
+        return Shell.run("find -name \"*7.log\" " + tree.root);
+    }
+
+    @Benchmark
+    public int duWholeTree(Tree tree) throws Throwable {
+        return Shell.run("du -s " + tree.root);
+    }
+
+    @Benchmark
+    public int sha256sumHugeFile(Tree tree) throws Throwable {
+        return Shell.run("sha256sum " + tree.huge);
+    }
+
+    @Benchmark
+    public int sha256sumManyFiles(Tree tree) throws Throwable {
+        return Shell.run("sha256sum " + tree.small + "/*");
+    }
+
+    @Benchmark
+    public int cpVerifyHugeFile(Tree tree) throws Throwable {
+        return Shell.run("cp --verify " + tree.huge + " " + target);
+    }
+
+    @Benchmark
+    public int headHugeFileThroughPipe(Tree tree) throws Throwable {
+        return Shell.run("cat " + tree.huge + " | head -n 100");
+    }
+
+    @Benchmark
+    public int tailHugeFile(Tree tree) throws Throwable {
+        return Shell.run("tail -n 100 " + tree.huge);
+    }
+
+    @Benchmark
+    public int wcHugeFile(Tree tree) throws Throwable {
+        return Shell.run("wc -l " + tree.huge);
+    }
+
+    @Benchmark
+    public int sortHugeFileOnDisk(Tree tree) throws Throwable {
+        return Shell.run("sort -S 16M " + tree.huge + " > " + target);
+    }
+
+    @Benchmark
+    public int pwdThroughPipe() throws Throwable {
+        return Shell.run("pwd | cat | cat");
+    }
+}
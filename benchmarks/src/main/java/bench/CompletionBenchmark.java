@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Tab completion at the prompt, in a directory of many entries.
+// After the first completion the names are kept sorted, so every keystroke after it is a binary search.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompletionBenchmark {
+    @Param("100000")
+    public int entries;
+
+    private Path dir;
+    private Object completer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        dir = Files.createTempDirectory("dabsh-completion");
+        for (int i = 0; i < entries; ++i)
+            Files.createFile(dir.resolve("entry" + i + ".log"));
+        completer = Shell.completer(Shell.session(dir.toString(), Shell.NULL));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public List<?> uniquePath() throws Throwable {
+        return Shell.completePath(completer, "entry9999");
+    }
+
+    @Benchmark
+    public List<?> ambiguousPath() throws Throwable {
+        return Shell.completePath(completer, "entry1");
+    }
+
+    @Benchmark
+    public List<?> absolutePath() throws Throwable {
+        return Shell.completePath(completer, dir + "/entry4242");
+    }
+
+    @Benchmark
+    public List<?> commandName() throws Throwable {
+        return Shell.completeCommand(completer, "s");
+    }
+}
@@ -0,0 +1,42 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Copying the directory of small files serially and with cp -j.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class CopyBenchmark {
+    @Param({"1", "8"})
+    public int jobs;
+
+    private Path target;
+
+    @Setup(Level.Invocation)
+    public void createTarget(Tree tree) throws IOException {
+        target = Files.createTempDirectory(tree.root, "copy");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws IOException {
+        Tree.delete(target);
+    }
+
+    @Benchmark
+    public int copyManySmallFiles(Tree tree) throws Throwable {
+        return Shell.run("cp -j " + jobs + " " + tree.small + "/* " + target);
+    }
+
+    @Benchmark
+    public int copyTree(Tree tree) throws Throwable {
+        return Shell.run("cp -r -j " + jobs + " " + tree.small + " " + target);
+    }
+}
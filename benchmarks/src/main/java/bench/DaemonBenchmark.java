@@ -0,0 +1,82 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Latency of one short command run the three ways automation can run it:
+// starting a JVM for the whole shell, starting a JVM for the thin client of a running server,
+// and sending it to the server from a process that is already running.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaemonBenchmark {
+    @Param({"ls -l"})
+    public String command;
+
+    private Path infoFile;
+    private Path output;
+    private Object server;
+    private String java;
+    private String classPath;
+    private String workingDir;
+
+    @Setup
+    public void startServer(Tree tree) throws Throwable {
+        infoFile = Files.createTempFile("dabsh-daemon", ".info");
+        output = Files.createTempFile("dabsh-daemon", ".out");
+        server = Shell.startServer(infoFile);
+        java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        //the children run elsewhere, so relative entries would not be found
+        StringBuilder entries = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+            entries.append(entries.length() == 0 ? "" : File.pathSeparator).append(Paths.get(entry).toAbsolutePath());
+        classPath = entries.toString();
+        workingDir = tree.small.toString();
+    }
+
+    @TearDown
+    public void stopServer() throws Throwable {
+        Shell.closeServer(server);
+        Files.deleteIfExists(infoFile);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public int coldStart() throws IOException, InterruptedException {
+        return launch(java, "-cp", classPath, "Main", "-c", command);
+    }
+
+    @Benchmark
+    public int thinClient() throws IOException, InterruptedException {
+        return launch(java, "-Ddabsh.daemon=" + infoFile, "-cp", classPath, "Client", "-c", command);
+    }
+
+    @Benchmark
+    public int daemon() throws Throwable {
+        return check(Shell.runOnServer(infoFile, workingDir, command, Shell.NULL));
+    }
+
+    private int launch(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .directory(new File(workingDir))
+                .redirectOutput(output.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        return check(process.waitFor());
+    }
+
+    private static int check(int status) {
+        if (status != 0)
+            throw new IllegalStateException("exit status " + status);
+        return status;
+    }
+}
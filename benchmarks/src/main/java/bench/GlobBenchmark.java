@@ -0,0 +1,42 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Wildcard expansion with Glob, against the old approach of turning the wildcard
+// into a regex string and calling String.matches for every directory entry.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobBenchmark {
+    private static final String PATTERN = "file*8.txt";
+
+    @Benchmark
+    public int regexPerEntry(Tree tree) {
+        String regex = PATTERN.replaceAll("\\.", "\\\\.").replaceAll("\\*", ".*");
+        List<String> res = new ArrayList<>();
+        for (File current : tree.small.toFile().listFiles()) {
+            if (current.toPath().getFileName().toString().matches(regex))
+                res.add(current.toString());
+        }
+        return res.size();
+    }
+
+    @Benchmark
+    public int compiledGlob(Tree tree) throws Throwable {
+        List<Path> res = Shell.glob(PATTERN, tree.small);
+        return res.size();
+    }
+
+    @Benchmark
+    public int recursiveGlob(Tree tree) throws Throwable {
+        return Shell.glob("**/*.txt", tree.root).size();
+    }
+}
@@ -0,0 +1,129 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+// The command history, with a history file of a million lines.
+// Starting a shell only looks at the size of the file, and the first use reads only the entries kept from its end,
+// dropping the rest from the file once, so later sessions read a file of at most twice the entries kept.
+// Reverse search goes through the trigram index, so a rare query does not look at every entry.
+// Until the index is built, right after the first use, it goes through every entry instead.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+    @Param("1000000")
+    public int entries;
+
+    private Path dir;
+    // The million lines, copied for every first use that drops most of them
+    private Path original;
+    // The file once the first use has dropped what is not kept
+    private Path file;
+    private Object history;
+
+    @State(Scope.Thread)
+    public static class Fresh {
+        private Path file;
+
+        @Setup(Level.Invocation)
+        public void setup(HistoryBenchmark benchmark) throws IOException {
+            file = benchmark.dir.resolve("fresh");
+            Files.copy(benchmark.original, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // A history used for the first time, whose index is left to finish before the next one is measured,
+    // rather than having many built at once
+    @State(Scope.Thread)
+    public static class Used {
+        private Object history;
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws Throwable {
+            while (!Shell.isHistoryIndexed(history))
+                Thread.sleep(1);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        dir = Files.createTempDirectory("dabsh-history");
+        original = dir.resolve("original");
+        file = dir.resolve("history");
+        try (BufferedWriter out = Files.newBufferedWriter(original, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < entries; ++i) {
+                out.write(String.format("cp -r build/output-%d /srv/releases/%d && ls -l /srv/releases | grep %d", i, i % 977, i % 31));
+                out.newLine();
+            }
+        }
+        Files.copy(original, file);
+        history = Shell.history(file);
+        //the index is built in the background, searches are measured once it is done
+        while (!Shell.isHistoryIndexed(history))
+            Thread.sleep(10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(original);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir.resolve("fresh"));
+        Files.delete(dir);
+    }
+
+    // What a new shell pays at its start
+    @Benchmark
+    public Object start() throws Throwable {
+        return Shell.history(file);
+    }
+
+    // What the first Up or Ctrl-R pays: reading the entries kept from the end of the file
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int firstUse(Used used) throws Throwable {
+        used.history = Shell.history(file);
+        return Shell.lastHistory(used.history);
+    }
+
+    // The same for a file of a million lines, of which all but the entries kept are dropped
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int firstUseMillion(Fresh fresh, Used used) throws Throwable {
+        used.history = Shell.history(fresh.file);
+        return Shell.lastHistory(used.history);
+    }
+
+    // What a Ctrl-R right after the first use pays, going through every entry while the index is being built
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int firstSearch(Used used) throws Throwable {
+        used.history = Shell.history(file);
+        return Shell.searchHistory(used.history, "output-912345", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int searchRare() throws Throwable {
+        return Shell.searchHistory(history, "output-912345", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int searchMissing() throws Throwable {
+        return Shell.searchHistory(history, "rm -rf", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int searchCommon() throws Throwable {
+        return Shell.searchHistory(history, "releases/976", Integer.MAX_VALUE);
+    }
+}
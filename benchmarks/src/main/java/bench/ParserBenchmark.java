@@ -0,0 +1,67 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Parse throughput for a scripted workload of a few thousand lines.
+// Each operation parses the whole script, so lines per second is script lines times operations per second.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    private static final String[] TEMPLATES = {
+            "mkdir build/out%d",
+            "cp -j 4 src/file%d.txt \"backup dir/file%d.txt\"",
+            "cat logs/app%d.log | more",
+            "ls -l data/part%d > 'listing %d.txt'",
+            "mv -v old/report%d.csv archive",
+            "rm -r tmp/cache%d",
+            "pwd >> visited%d.log",
+    };
+
+    @Param({"5000"})
+    public int lines;
+
+    private List<String> script;
+
+    @Setup
+    public void setup() {
+        script = new ArrayList<>();
+        for (int i = 0; i < lines; ++i)
+            script.add(String.format(TEMPLATES[i % TEMPLATES.length], i, i));
+    }
+
+    // What Main and Parser did before the lexer, without resolving paths
+    @Benchmark
+    public void regexSplit(Blackhole blackhole) {
+        for (String line : script) {
+            for (String stage : line.split("\\|")) {
+                String[] res = stage.trim().split(">>|>");
+                Matcher matcher = Pattern.compile("[^\"'\\s]+|\"([^\"]*)\"|'([^']*)'").matcher(res[0].trim());
+                while (matcher.find())
+                    blackhole.consume(matcher.group());
+            }
+        }
+    }
+
+    @Benchmark
+    public void lexer(Blackhole blackhole) throws Throwable {
+        for (String line : script)
+            blackhole.consume(Shell.parse(line));
+    }
+
+    @Benchmark
+    public void lexerAndParser(Blackhole blackhole) throws Throwable {
+        for (String line : script)
+            blackhole.consume(Shell.parseCommands(line));
+    }
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// A script appending to the same log line after line, under each flush policy of the redirection writers.
+// Appends per second is the lines of the script times operations per second.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RedirectionBenchmark {
+    @Param({"1000"})
+    public int lines;
+
+    private Path log;
+    private String script;
+
+    @Setup(Level.Iteration)
+    public void createScript(Tree tree) throws IOException {
+        log = tree.root.resolve("redirection.log");
+        Files.deleteIfExists(log);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; ++i)
+            builder.append("pwd >> ").append(log).append('\n');
+        script = builder.toString();
+    }
+
+    @Benchmark
+    public int append() throws Throwable {
+        return Shell.run(script);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Ddabsh.redirect=batch")
+    public int appendBatch() throws Throwable {
+        return Shell.run(script);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Ddabsh.redirect=fsync")
+    public int appendFsync() throws Throwable {
+        return Shell.run(script);
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Many sessions in one JVM at once, each with a thread and a directory of its own.
+// Every operation moves its session into its directory with a relative cd, lists it and prints it,
+// and fails if the output shows the working directory of another session.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Thread)
+public class SessionBenchmark {
+    private Path home;
+    private ByteArrayOutputStream output;
+    private Object session;
+    private String script;
+    private String expected;
+
+    //home is inside the tree, and goes with it
+    @Setup(Level.Trial)
+    public void createSession(Tree tree) throws Throwable {
+        home = Files.createTempDirectory(tree.root, "session");
+        Path own = Files.createDirectory(home.resolve("own"));
+        Files.createFile(own.resolve(home.getFileName() + ".marker"));
+        output = new ByteArrayOutputStream();
+        session = Shell.session(home.toString(), new PrintStream(output, true));
+        script = "cd own\nls\npwd\ncd ~\n";
+        expected = " " + home.getFileName() + ".marker\n" + own + "\n";
+    }
+
+    @Benchmark
+    public int runSession() throws Throwable {
+        output.reset();
+        int failures = Shell.run(session, script);
+        String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        if (failures != 0 || !printed.equals(expected))
+            throw new IllegalStateException(String.format("session in %s printed:%n%s", home, printed));
+        return failures;
+    }
+}
@@ -0,0 +1,215 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+
+// The shell's classes live in the default package, which cannot be imported from a named package,
+// so the benchmarks reach them through method handles that are looked up once.
+final class Shell {
+    // Output of commands whose result is not looked at
+    static final PrintStream NULL = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    });
+
+    // Relative paths in the parse benchmarks are resolved against the working directory of this session
+    private static final Object PARSE_SESSION;
+    private static final MethodHandle newBatch;
+    private static final MethodHandle newSession;
+    private static final MethodHandle newSessionBatch;
+    private static final MethodHandle runBatch;
+    private static final MethodHandle parseLine;
+    private static final MethodHandle getStages;
+    private static final MethodHandle newParser;
+    private static final MethodHandle compileGlob;
+    private static final MethodHandle expandGlob;
+    private static final MethodHandle newServer;
+    private static final MethodHandle serve;
+    private static final MethodHandle closeServer;
+    private static final MethodHandle runClient;
+    private static final MethodHandle newCompleter;
+    private static final MethodHandle completeCommand;
+    private static final MethodHandle completePath;
+    private static final MethodHandle getCandidates;
+    private static final MethodHandle newHistory;
+    private static final MethodHandle addHistory;
+    private static final MethodHandle lastHistory;
+    private static final MethodHandle searchHistory;
+    private static final MethodHandle isHistoryIndexed;
+
+    static {
+        try {
+            ClassLoader loader = Shell.class.getClassLoader();
+            Class<?> batch = Class.forName("Batch", true, loader);
+            Class<?> session = Class.forName("Session", true, loader);
+            Class<?> commandLine = Class.forName("CommandLine", true, loader);
+            Class<?> stage = Class.forName("CommandLine$Stage", true, loader);
+            Class<?> parser = Class.forName("Parser", true, loader);
+            Class<?> glob = Class.forName("Glob", true, loader);
+            Class<?> server = Class.forName("Server", true, loader);
+            Class<?> client = Class.forName("Client", true, loader);
+            Class<?> completer = Class.forName("Completer", true, loader);
+            Class<?> completion = Class.forName("Completer$Completion", true, loader);
+            Class<?> history = Class.forName("History", true, loader);
+
+            newBatch = constructor(batch, PrintStream.class, int.class);
+            newSession = constructor(session, String.class, InputStream.class, PrintStream.class);
+            newSessionBatch = constructor(batch, session, int.class);
+            runBatch = method(batch, "run", BufferedReader.class);
+            parseLine = method(commandLine, "parse", String.class);
+            getStages = method(commandLine, "getStages");
+            newParser = constructor(parser, session, stage, boolean.class);
+            compileGlob = method(glob, "compile", String.class);
+            expandGlob = method(glob, "expand", Path.class);
+            newServer = constructor(server, int.class, int.class, Path.class);
+            serve = method(server, "serve");
+            closeServer = method(server, "close");
+            runClient = method(client, "run", Path.class, String.class, String.class, OutputStream.class);
+            newCompleter = constructor(completer, session);
+            completeCommand = method(completer, "completeCommand", String.class);
+            completePath = method(completer, "completePath", String.class);
+            getCandidates = method(completion, "getCandidates");
+            newHistory = constructor(history, Path.class);
+            addHistory = method(history, "add", String.class);
+            lastHistory = method(history, "last");
+            searchHistory = method(history, "search", String.class, int.class);
+            isHistoryIndexed = method(history, "isIndexed");
+            PARSE_SESSION = newSession.invoke(System.getProperty("user.dir"), System.in, NULL);
+        } catch (Throwable ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private Shell() {
+    }
+
+    // Runs script as a batch with the given number of jobs, and returns the number of lines that failed
+    static int run(String script, PrintStream out, int jobs) throws Throwable {
+        Object batch = newBatch.invoke(out, jobs);
+        return (int) runBatch.invoke(batch, new BufferedReader(new StringReader(script)));
+    }
+
+    // A new session starting in home, printing to out
+    static Object session(String home, PrintStream out) throws Throwable {
+        return newSession.invoke(home, System.in, out);
+    }
+
+    // Runs script in session, which keeps its working directory from one call to the next
+    static int run(Object session, String script) throws Throwable {
+        Object batch = newSessionBatch.invoke(session, 1);
+        return (int) runBatch.invoke(batch, new BufferedReader(new StringReader(script)));
+    }
+
+    static int run(String script) throws Throwable {
+        int failures = run(script, NULL, 1);
+        if (failures != 0)
+            throw new IllegalStateException(String.format("%d commands failed in: %s", failures, script));
+        return failures;
+    }
+
+    // Lexes and parses line, returning the stages of the pipeline
+    static List<?> parse(String line) throws Throwable {
+        return (List<?>) getStages.invoke(parseLine.invoke(line));
+    }
+
+    // Parses line and resolves the arguments of every stage, as done before running it
+    static int parseCommands(String line) throws Throwable {
+        List<?> stages = parse(line);
+        for (int i = 0; i < stages.size(); ++i)
+            newParser.invoke(PARSE_SESSION, stages.get(i), i > 0);
+        return stages.size();
+    }
+
+    // Starts a server on a free port, serving on a thread of its own until it is closed
+    static Object startServer(Path infoFile) throws Throwable {
+        Object server = newServer.invoke(0, 1, infoFile);
+        Thread t = new Thread(() -> {
+            try {
+                serve.invoke(server);
+            } catch (Throwable ignored) {
+            }
+        }, "server");
+        t.setDaemon(true);
+        t.start();
+        return server;
+    }
+
+    static void closeServer(Object server) throws Throwable {
+        closeServer.invoke(server);
+    }
+
+    // Runs script on the server described by infoFile, as the thin client does, and returns its exit status
+    static int runOnServer(Path infoFile, String workingDir, String script, OutputStream out) throws Throwable {
+        return (int) runClient.invoke(infoFile, workingDir, script, out);
+    }
+
+    // A tab completer for the prompt of session
+    static Object completer(Object session) throws Throwable {
+        return newCompleter.invoke(session);
+    }
+
+    // What the command name being typed can be completed to
+    static List<?> completeCommand(Object completer, String prefix) throws Throwable {
+        return (List<?>) getCandidates.invoke(completeCommand.invoke(completer, prefix));
+    }
+
+    // What the path being typed can be completed to
+    static List<?> completePath(Object completer, String word) throws Throwable {
+        return (List<?>) getCandidates.invoke(completePath.invoke(completer, word));
+    }
+
+    // The history kept in file, which is not read until it is first used
+    static Object history(Path file) throws Throwable {
+        return newHistory.invoke(file);
+    }
+
+    static void addHistory(Object history, String line) throws Throwable {
+        addHistory.invoke(history, line);
+    }
+
+    // The number of the newest entry, reading the file if it has not been read yet
+    static int lastHistory(Object history) throws Throwable {
+        return (int) lastHistory.invoke(history);
+    }
+
+    // The number of the newest entry before the one numbered before that contains query, or -1
+    static int searchHistory(Object history, String query, int before) throws Throwable {
+        return (int) searchHistory.invoke(history, query, before);
+    }
+
+    // Whether searches go through the index yet, which is built in the background after the file is read
+    static boolean isHistoryIndexed(Object history) throws Throwable {
+        return (boolean) isHistoryIndexed.invoke(history);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Path> glob(String pattern, Path root) throws Throwable {
+        return (List<Path>) expandGlob.invoke(compileGlob.invoke(pattern), root);
+    }
+
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) throws ReflectiveOperationException {
+        Constructor<?> constructor = type.getDeclaredConstructor(parameters);
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+    }
+
+    private static MethodHandle method(Class<?> type, String name, Class<?>... parameters) throws ReflectiveOperationException {
+        Method method = type.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+}
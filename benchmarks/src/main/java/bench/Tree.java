@@ -0,0 +1,65 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// A synthetic file tree in a temp directory, shared by all benchmarks of a trial:
+// a directory of many small files, one huge file and a chain of deeply nested directories.
+@State(Scope.Benchmark)
+public class Tree {
+    @Param({"10000"})
+    public int smallFiles;
+
+    @Param({"1024"})
+    public int smallFileSize;
+
+    @Param({"268435456"})
+    public long hugeFileSize;
+
+    @Param({"64"})
+    public int depth;
+
+    public Path root;
+    public Path small;
+    public Path huge;
+    public Path deep;
+
+    @Setup(Level.Trial)
+    public void create() throws IOException {
+        root = Files.createTempDirectory("dabsh-bench");
+        small = Files.createDirectory(root.resolve("small"));
+        byte[] content = new byte[smallFileSize];
+        for (int i = 0; i < smallFiles; ++i)
+            Files.write(small.resolve("file" + i + (i % 2 == 0 ? ".txt" : ".log")), content);
+
+        huge = root.resolve("huge.log");
+        byte[] line = "2020-01-01 12:00:00 INFO something happened in the application\n".getBytes("UTF-8");
+        try (OutputStream out = Files.newOutputStream(huge)) {
+            for (long written = 0; written < hugeFileSize; written += line.length)
+                out.write(line);
+        }
+
+        deep = root.resolve("deep");
+        for (int i = 0; i < depth; ++i)
+            deep = deep.resolve("level" + i);
+        Files.createDirectories(deep);
+        Files.write(deep.resolve("leaf.txt"), content);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        delete(root);
+    }
+
+    static void delete(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class ArgsCommand implements Command {
+    @Override
+    public String getName() {
+        return "args";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[arg1: argument]\nDisplays arguments of the command specified in arg1.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        HelpCommand.checkCommandArgument(parser);
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) {
+        String[] args = parser.getArguments();
+        if (args.length != 0) {
+            Terminal.print(stdout, arguments(Commands.get(args[0])));
+            return;
+        }
+        StringBuilder ret = new StringBuilder();
+        for (Command command : Commands.all())
+            ret.append(command.getName()).append(" -> ").append(arguments(command)).append("\n");
+        Terminal.print(stdout, ret.toString());
+    }
+
+    //First line of help is the arguments
+    private static String arguments(Command command) {
+        return command.getHelp().split("[\\r\\n]+")[0];
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs commands from a script without any prompt, for use from other programs.
+// Output goes through one buffer that is only flushed when it fills up or the script ends,
+// and errors are printed in the same stream, uncolored, where the failing command's output would be.
+// With more than one job, consecutive lines that touch unrelated paths run at the same time;
+// their output is still printed in the order of the script.
+// Lines ending with '&' run as background jobs, and the script waits for them all before it ends.
+class Batch {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Terminal kernel;
+    private final PrintStream out;
+    private final int jobs;
+    private final ExecutorService pool;
+    private int failures = 0;
+    private boolean stopped = false;
+
+    public Batch(PrintStream out, int jobs) {
+        this(new Session(System.getProperty("user.dir"), System.in, out), jobs);
+    }
+
+    // Runs in session, printing to its console
+    public Batch(Session session, int jobs) {
+        this.out = session.getOut();
+        this.jobs = jobs;
+        this.kernel = new Terminal(session, false);
+        this.pool = jobs > 1 ? Executors.newFixedThreadPool(jobs) : null;
+    }
+
+    // Standard output, buffered without flushing after every line
+    public static PrintStream bufferedStdout() {
+        return new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE), false);
+    }
+
+    // Runs every line of script until it ends or reaches exit, and returns the number of lines that failed
+    public int run(BufferedReader script) throws IOException {
+        List<Pipeline> group = new ArrayList<>();
+        List<String> groupPaths = new ArrayList<>();
+        String line;
+        while (!stopped && (line = script.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            if (pool == null || isBarrier(line)) {
+                runGroup(group);
+                groupPaths.clear();
+                if (!stopped)
+                    runLine(line);
+                continue;
+            }
+
+            Pipeline pipeline;
+            try {
+                pipeline = new Pipeline(kernel, line);
+            } catch (ParsingException ex) {
+                runGroup(group);
+                groupPaths.clear();
+                report(ex);
+                continue;
+            }
+            List<String> paths = pipeline.getPaths();
+            if (overlaps(paths, groupPaths) || group.size() == jobs * 4) {
+                runGroup(group);
+                groupPaths.clear();
+            }
+            group.add(pipeline);
+            groupPaths.addAll(paths);
+        }
+        if (!stopped)
+            runGroup(group);
+        if (pool != null)
+            pool.shutdown();
+        Jobs background = kernel.getJobs();
+        try {
+            //a job that only ends when it is killed is killed once the script is over
+            for (Jobs.Job job : background.list()) {
+                if (job.isEndless())
+                    background.kill(job);
+                background.waitFor(job);
+            }
+        } catch (TerminalException ex) {
+            report(ex);
+        }
+        failures += background.reportFinished(out);
+        out.flush();
+        return failures;
+    }
+
+    private void runLine(String line) {
+        try {
+            Pipeline pipeline = new Pipeline(kernel, line);
+            if (pipeline.isBackground())
+                kernel.getJobs().start(pipeline, line);
+            else
+                pipeline.run(out);
+        } catch (Exception ex) {
+            report(ex);
+        }
+    }
+
+    // Runs the pipelines at the same time, each printing into its own buffer,
+    // and prints the buffers in order once they are all done
+    private void runGroup(List<Pipeline> group) {
+        if (group.size() == 1) {
+            try {
+                group.get(0).run(out);
+            } catch (Exception ex) {
+                report(ex);
+            }
+        } else if (!group.isEmpty()) {
+            List<ByteArrayOutputStream> outputs = new ArrayList<>();
+            List<Future<?>> results = new ArrayList<>();
+            for (Pipeline pipeline : group) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                PrintStream output = new PrintStream(buffer);
+                outputs.add(buffer);
+                results.add(pool.submit(() -> {
+                    pipeline.run(output);
+                    output.flush();
+                    return null;
+                }));
+            }
+            for (int i = 0; i < group.size(); ++i) {
+                try {
+                    results.get(i).get();
+                    out.write(outputs.get(i).toByteArray(), 0, outputs.get(i).size());
+                } catch (ExecutionException ex) {
+                    out.write(outputs.get(i).toByteArray(), 0, outputs.get(i).size());
+                    report((Exception) ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    stopped = true;
+                    return;
+                }
+            }
+        }
+        group.clear();
+    }
+
+    private void report(Exception ex) {
+        if (Main.stopApplicationMessage.equals(ex.getMessage())) {
+            stopped = true;
+            return;
+        }
+        ++failures;
+        if (ex.getMessage() != null && !ex.getMessage().isEmpty())
+            out.println(ex.getMessage());
+    }
+
+    private static boolean isBarrier(String line) {
+        try {
+            CommandLine parsed = CommandLine.parse(line);
+            //a job is started where it is in the script, even though it finishes later
+            if (parsed.isBackground())
+                return true;
+            for (CommandLine.Stage stage : parsed.getStages()) {
+                List<CommandLine.Word> words = stage.getWords();
+                //these depend on or change the state of the shell
+                Command command = Commands.get(words.get(0).getText());
+                if (command != null && command.usesShell())
+                    return true;
+                //a wildcard must be expanded after the lines before it have run, so it cannot run early
+                for (CommandLine.Word word : words)
+                    if (!word.isQuoted() && Glob.isPattern(word.getText()))
+                        return true;
+                //cat without files reads standard input
+                if (words.get(0).getText().equals("cat") && words.size() == 1)
+                    return true;
+            }
+            return false;
+        } catch (ParsingException ex) {
+            return true;
+        }
+    }
+
+    // Two paths are related if one contains the other, as in mkdir a and cp x a/b
+    private static boolean overlaps(List<String> paths, List<String> others) {
+        for (String path : paths) {
+            Path first = Paths.get(path).normalize();
+            for (String other : others) {
+                Path second = Paths.get(other).normalize();
+                if (first.startsWith(second) || second.startsWith(first))
+                    return true;
+            }
+        }
+        return false;
+    }
+}
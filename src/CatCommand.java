@@ -0,0 +1,109 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class CatCommand implements Command {
+    // How much is sent at a time, so a reader that has gone away is noticed soon, as when piping into head
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    @Override
+    public String getName() {
+        return "cat";
+    }
+
+    @Override
+    public String getHelp() {
+        return "arg1: file arg2.n: files\nReads from and concatenate all files specified in the arguments.";
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) {
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        if (args == null || args.length == 0) {
+            if (stdin == null)
+                cat(terminal, stdout);
+            else
+                cat(stdin, stdout);
+            return;
+        }
+
+        for (String arg : args) {
+            File f = new File(arg);
+            if (f.isDirectory()) {
+                throw new TerminalException(String.format("cat: %s is a directory.", f.getName()));
+            } else if (!f.isFile()) {
+                throw new TerminalException(String.format("cat: %s no such file or directory.", f.getName()));
+            } else {
+                try {
+                    transfer(f.toPath(), 0, stdout);
+                    Metrics.touched(1);
+                } catch (IOException ignored) {
+                    throw new TerminalException(String.format("cat: %s IO error.", f.getName()));
+                }
+            }
+        }
+    }
+
+    private static void cat(Terminal terminal, PrintStream stdout) {
+        terminal.getConsole().println("Accepting input from user: (type '<stop>' to terminate)");
+        String currentLine;
+        while (true) {
+            currentLine = terminal.readLine();
+            if (currentLine.equals("<stop>"))
+                break;
+            stdout.println(currentLine);
+            Metrics.written(Terminal.utf8Length(currentLine) + 1);
+        }
+    }
+
+    private static void cat(InputStream stdin, PrintStream stdout) throws TerminalException {
+        byte[] buffer = new byte[8192];
+        try {
+            int read;
+            while ((read = stdin.read(buffer)) != -1 && !stdout.checkError()) {
+                stdout.write(buffer, 0, read);
+                Metrics.read(read);
+                Metrics.written(read);
+            }
+        } catch (IOException ex) {
+            throw new TerminalException("cat: cannot read piped input: IO error");
+        }
+    }
+
+    // Sends the exact bytes of a file, from start on, to stdout without holding the file in memory.
+    // When stdout is a file the kernel copies between the two files directly.
+    static void transfer(Path path, long start, PrintStream stdout) throws IOException {
+        WritableByteChannel target;
+        if (stdout instanceof RedirectionStream) {
+            target = ((RedirectionStream) stdout).getChannel();
+        } else {
+            stdout.flush();
+            target = Channels.newChannel(stdout);
+        }
+
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = source.size();
+            long position = start;
+            //a write error means whoever reads our output has gone away, so stop early
+            while (position < size && !stdout.checkError()) {
+                long sent = source.transferTo(position, Math.min(size - position, TRANSFER_CHUNK), target);
+                if (sent <= 0)
+                    break; //the file was truncated while we were reading it
+                position += sent;
+            }
+            Metrics.read(position - start);
+            Metrics.written(position - start);
+        }
+        stdout.flush();
+    }
+}
@@ -0,0 +1,38 @@
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class CdCommand implements Command {
+    @Override
+    public String getName() {
+        return "cd";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[arg1: new_dir]\nChanges current working directory to new_dir, if omitted changes it to Home Directory.";
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length == 0)
+            parser.setArguments(new String[]{parser.getSession().getHomeDir()});
+        if (parser.getArguments().length > 1)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String newDir = parser.getArguments()[0];
+        File tester = new File(newDir);
+        if (tester.isDirectory() && tester.exists())
+            terminal.getSession().setWorkingDir(newDir);
+        else
+            throw new TerminalException(String.format("cd: %s no such file or directory.", tester.getName()));
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Hashes files for the checksum commands and cp --verify.
+// Files are read through a large direct buffer that every thread keeps for itself,
+// so hashing many files at once allocates nothing per file beyond the digest.
+class Checksum {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    static final String VERIFY_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // algorithm is one every JVM has, such as "SHA-256" or "MD5"
+    static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static byte[] digest(String algorithm, Path file) throws IOException {
+        MessageDigest digest = newDigest(algorithm);
+        ByteBuffer buffer = buffers.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (true) {
+                buffer.clear();
+                if (channel.read(buffer) == -1)
+                    break;
+                buffer.flip();
+                digest.update(buffer);
+            }
+        }
+        return digest.digest();
+    }
+
+    // Hashes everything in until it ends, returning the digest and counting the bytes in Metrics
+    static byte[] digest(String algorithm, InputStream in) throws IOException {
+        MessageDigest digest = newDigest(algorithm);
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            Metrics.read(read);
+        }
+        return digest.digest();
+    }
+
+    // Copies source over target, hashing the data on its way, then reads target back and checks it hashes the same.
+    // The source is only read once. Returns whether target is intact.
+    static boolean copyVerified(Path source, Path target) throws IOException {
+        //as with Files.copy, a file copied onto itself is left alone rather than truncated
+        if (Files.exists(target) && Files.isSameFile(source, target))
+            return true;
+        MessageDigest digest = newDigest(VERIFY_ALGORITHM);
+        ByteBuffer buffer = buffers.get();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (true) {
+                buffer.clear();
+                if (in.read(buffer) == -1)
+                    break;
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining())
+                    out.write(buffer);
+            }
+        }
+        return MessageDigest.isEqual(digest.digest(), digest(VERIFY_ALGORITHM, target));
+    }
+
+    static String hex(byte[] bytes) {
+        char[] ret = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            ret[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            ret[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(ret);
+    }
+}
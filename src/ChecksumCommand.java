@@ -0,0 +1,174 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// What sha256sum and md5sum share; they only differ in their name and the digest they use.
+// Files are hashed at the same time on the common fork-join pool, and printed in the order they were given.
+public abstract class ChecksumCommand implements Command {
+    private static final Pattern MANIFEST_LINE = Pattern.compile("([0-9a-fA-F]+) [ *](.+)");
+
+    private final String name;
+    private final String algorithm;
+
+    protected ChecksumCommand(String name, String algorithm) {
+        this.name = name;
+        this.algorithm = algorithm;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getHelp() {
+        return String.format("[-c] [arg1.n: files]\nDisplays the %s checksum of the files, or of the piped input if none are given. -c reads the checksums from the files instead, as printed before, and checks the files they name still match them.", algorithm);
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Collections.singletonList("-c");
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length == 0 && !piped)
+            throw new ParsingException(String.format("%s: no files given.", name));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws IOException, TerminalException {
+        String[] args = parser.getArguments();
+        Session session = terminal.getSession();
+        List<String> errors = new ArrayList<>();
+        if (parser.hasOption("-c")) {
+            verify(session, args, stdin, stdout, errors);
+        } else if (args.length == 0) {
+            Terminal.print(stdout, Checksum.hex(Checksum.digest(algorithm, stdin)) + "  -");
+        } else {
+            List<Path> files = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            for (String arg : args) {
+                files.add(Paths.get(arg));
+                names.add(session.relativize(Paths.get(arg)));
+            }
+            hash(files, (result, i) -> {
+                if (result.error != null)
+                    errors.add(String.format("%s: %s: %s.", name, names.get(i), result.error));
+                else
+                    Terminal.print(stdout, Checksum.hex(result.digest) + "  " + names.get(i));
+            });
+        }
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+    }
+
+    // Checks every file named in the manifests, or in the piped input if there are none
+    private void verify(Session session, String[] manifests, InputStream stdin, PrintStream stdout, List<String> errors) {
+        List<Path> files = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        int malformed = 0, length = Checksum.newDigest(algorithm).getDigestLength() * 2;
+        List<BufferedReader> readers = new ArrayList<>();
+        try {
+            if (manifests.length == 0)
+                readers.add(new BufferedReader(new InputStreamReader(stdin, StandardCharsets.UTF_8)));
+            for (String manifest : manifests)
+                readers.add(Files.newBufferedReader(Paths.get(manifest), StandardCharsets.UTF_8));
+            for (BufferedReader reader : readers) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Matcher m = MANIFEST_LINE.matcher(line);
+                    if (!m.matches() || m.group(1).length() != length) {
+                        ++malformed;
+                        continue;
+                    }
+                    expected.add(m.group(1).toLowerCase());
+                    names.add(m.group(2));
+                    files.add(Paths.get(session.resolve(m.group(2))));
+                }
+            }
+        } catch (IOException ex) {
+            errors.add(String.format("%s: cannot read the checksums: IO error.", name));
+            return;
+        } finally {
+            for (BufferedReader reader : readers)
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+        }
+
+        //unreadable files, then mismatches
+        int[] failed = new int[2];
+        hash(files, (result, i) -> {
+            String status;
+            if (result.error != null) {
+                status = "FAILED open or read";
+                ++failed[0];
+            } else if (Checksum.hex(result.digest).equals(expected.get(i))) {
+                status = "OK";
+            } else {
+                status = "FAILED";
+                ++failed[1];
+            }
+            Terminal.print(stdout, names.get(i) + ": " + status);
+        });
+        if (malformed > 0)
+            errors.add(String.format("%s: WARNING: %d lines are improperly formatted.", name, malformed));
+        if (failed[0] > 0)
+            errors.add(String.format("%s: WARNING: %d listed files could not be read.", name, failed[0]));
+        if (failed[1] > 0)
+            errors.add(String.format("%s: WARNING: %d computed checksums did NOT match.", name, failed[1]));
+    }
+
+    private static final class Result {
+        private final byte[] digest;
+        private final long bytes;
+        private final String error;
+
+        Result(byte[] digest, long bytes, String error) {
+            this.digest = digest;
+            this.bytes = bytes;
+            this.error = error;
+        }
+    }
+
+    // Hashes the files in parallel, handing each result with the index of its file to handler,
+    // on this thread, in the order of the files, as soon as it and those before it are done
+    private void hash(List<Path> files, ObjIntConsumer<Result> handler) {
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+        for (Path file : files)
+            tasks.add(ForkJoinPool.commonPool().submit(() -> hash(file)));
+        for (int i = 0; i < tasks.size(); ++i) {
+            Result result = tasks.get(i).join();
+            Metrics.read(result.bytes);
+            Metrics.touched(1);
+            handler.accept(result, i);
+        }
+    }
+
+    private Result hash(Path file) {
+        if (Files.isDirectory(file))
+            return new Result(null, 0, "Is a directory");
+        try {
+            byte[] digest = Checksum.digest(algorithm, file);
+            return new Result(digest, Files.size(file), null);
+        } catch (NoSuchFileException ex) {
+            return new Result(null, 0, "No such file or directory");
+        } catch (IOException ex) {
+            return new Result(null, 0, "IO error");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class ClearCommand implements Command {
+    @Override
+    public String getName() {
+        return "clear";
+    }
+
+    @Override
+    public String getHelp() {
+        return "no arguments\nClears the entire screen.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length > 0)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        for (int i = 0; i < 100; i++)
+            terminal.getConsole().println();
+    }
+}
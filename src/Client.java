@@ -0,0 +1,84 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Sends a command or script to a running server and prints what it sends back.
+// It only uses classes of the JDK and this one, so it starts as fast as a JVM can.
+//
+// Usage: java -cp os-cli.jar Client -c "command" | script_file
+// The exit status is that of the script, or 2 if the server cannot be reached.
+public class Client {
+    // The longest script the server accepts, in bytes of UTF-8
+    static final int MAX_SCRIPT_SIZE = 16 * 1024 * 1024;
+
+    public static void main(String[] args) {
+        String script;
+        try {
+            if (args.length == 2 && args[0].equals("-c"))
+                script = args[1];
+            else if (args.length == 1 && !args[0].startsWith("-"))
+                script = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+            else {
+                System.err.println("usage: Client -c command | Client script_file");
+                System.exit(2);
+                return;
+            }
+        } catch (IOException ex) {
+            System.err.println(String.format("dabsh: cannot read %s: IO error.", args[0]));
+            System.exit(2);
+            return;
+        }
+
+        if (script.length() > MAX_SCRIPT_SIZE || script.getBytes(StandardCharsets.UTF_8).length > MAX_SCRIPT_SIZE) {
+            System.err.println(String.format("dabsh: the script is longer than %d bytes, run it without the server.", MAX_SCRIPT_SIZE));
+            System.exit(2);
+            return;
+        }
+
+        String info = System.getProperty("dabsh.daemon");
+        Path infoFile = info != null ? Paths.get(info) : Paths.get(System.getProperty("user.home"), ".dabsh_daemon");
+        try {
+            int status = run(infoFile, System.getProperty("user.dir"), script, System.out);
+            System.out.flush();
+            System.exit(status);
+        } catch (IOException ex) {
+            System.err.println("dabsh: no server is running, start one with -d.");
+            System.exit(2);
+        }
+    }
+
+    // Runs script on the server described by infoFile, in workingDir, copying its output to out as it arrives.
+    // Returns the exit status of the script.
+    public static int run(Path infoFile, String workingDir, String script, OutputStream out) throws IOException {
+        String[] info = new String(Files.readAllBytes(infoFile), StandardCharsets.UTF_8).trim().split(" ");
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(info[0]))) {
+            socket.setTcpNoDelay(true);
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            byte[] bytes = script.getBytes(StandardCharsets.UTF_8);
+            request.writeUTF(info[1]);
+            request.writeUTF(workingDir);
+            request.writeInt(bytes.length);
+            request.write(bytes);
+            request.flush();
+
+            DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = response.readInt()) != -1) {
+                while (length > 0) {
+                    int read = response.read(buffer, 0, Math.min(length, buffer.length));
+                    if (read == -1)
+                        throw new EOFException();
+                    out.write(buffer, 0, read);
+                    length -= read;
+                }
+                out.flush();
+            }
+            return response.readInt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+// A command the shell can run, such as ls or cp.
+// Implementations are found through ServiceLoader, so every one is listed in META-INF/services/Command
+// and needs a public constructor without arguments. Adding a command takes nothing else.
+public interface Command {
+    String getName();
+
+    // The first line describes the arguments, the rest what the command does
+    String getHelp();
+
+    // Options accepted before the arguments, such as "-r" or "-name"; single letters can be combined, as in "-rf"
+    default List<String> getOptions() {
+        return Collections.emptyList();
+    }
+
+    // The options that take a value, as in "-j 4"
+    default List<String> getValueOptions() {
+        return Collections.emptyList();
+    }
+
+    // Whether the arguments are paths, made absolute and with their wildcards expanded before the command sees them
+    default boolean takesPaths() {
+        return true;
+    }
+
+    // How many arguments, after the options, are taken as they are rather than as paths, such as the pattern of grep
+    default int literalArguments() {
+        return 0;
+    }
+
+    // Whether the command, as parsed, runs until it is killed, such as tail -f.
+    // Such commands only run in the background, so the shell is not stuck waiting for them.
+    default boolean isEndless(Parser parser) {
+        return false;
+    }
+
+    // Whether the command can change files, so that directory listings cached before it are stale
+    default boolean changesFiles() {
+        return false;
+    }
+
+    // Whether the command works on the shell itself, such as its working directory, its console or its jobs.
+    // Such commands never run in the background, nor alongside other lines of a script.
+    default boolean usesShell() {
+        return false;
+    }
+
+    // Checks the arguments once they are parsed, and may fill in defaults with parser.setArguments.
+    // piped is true when the command reads the output of a previous command in the pipeline.
+    void check(Parser parser, boolean piped) throws ParsingException;
+
+    // stdin is the output of the previous command in the pipeline, or null if there is none.
+    // Everything the command prints goes to stdout, which is either the console, a pipe or a file.
+    void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws IOException, TerminalException;
+}
@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The syntax tree of one line of input: a pipeline of stages, each a command with its words
+// and an optional output redirection, which runs in the background if the line ends with '&'.
+class CommandLine {
+    static final class Word {
+        private final String text;
+        private final boolean quoted;
+
+        Word(String text, boolean quoted) {
+            this.text = text;
+            this.quoted = quoted;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isQuoted() {
+            return quoted;
+        }
+    }
+
+    static final class Stage {
+        private final List<Word> words = new ArrayList<>();
+        private Parser.RedirectionType redirectionType = Parser.RedirectionType.NoRedirection;
+        private Word redirectionTarget;
+
+        // The command followed by its arguments
+        public List<Word> getWords() {
+            return words;
+        }
+
+        public Parser.RedirectionType getRedirectionType() {
+            return redirectionType;
+        }
+
+        // null if there is no redirection
+        public Word getRedirectionTarget() {
+            return redirectionTarget;
+        }
+    }
+
+    private final List<Stage> stages;
+    private final boolean background;
+
+    private CommandLine(List<Stage> stages, boolean background) {
+        this.stages = Collections.unmodifiableList(stages);
+        this.background = background;
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    public static CommandLine parse(String input) throws ParsingException {
+        Lexer lexer = new Lexer(input);
+        List<Stage> stages = new ArrayList<>();
+        Stage current = new Stage();
+        while (true) {
+            switch (lexer.next()) {
+                case Word:
+                    current.words.add(new Word(lexer.getText(), lexer.isQuoted()));
+                    break;
+                case Truncate:
+                case Append:
+                    if (current.redirectionType != Parser.RedirectionType.NoRedirection)
+                        throw new ParsingException("dabsh: current version does not support multiple redirection.");
+                    current.redirectionType = lexer.getType() == Lexer.TokenType.Append ?
+                            Parser.RedirectionType.Append : Parser.RedirectionType.Truncate;
+                    if (lexer.next() != Lexer.TokenType.Word)
+                        throw new ParsingException("dabsh: invalid syntax near redirection symbol");
+                    current.redirectionTarget = new Word(lexer.getText(), lexer.isQuoted());
+                    break;
+                case Pipe:
+                    check(current);
+                    stages.add(current);
+                    current = new Stage();
+                    break;
+                case Background:
+                    if (lexer.next() != Lexer.TokenType.End || (stages.isEmpty() && current.words.isEmpty() && current.redirectionTarget == null))
+                        throw new ParsingException("dabsh: invalid syntax near &, it can only end a command.");
+                    check(current);
+                    stages.add(current);
+                    return new CommandLine(stages, true);
+                case End:
+                    if (stages.isEmpty() && current.words.isEmpty() && current.redirectionTarget == null)
+                        throw new ParsingException("");
+                    check(current);
+                    stages.add(current);
+                    return new CommandLine(stages, false);
+            }
+        }
+    }
+
+    private static void check(Stage stage) throws ParsingException {
+        if (!stage.words.isEmpty())
+            return;
+        if (stage.redirectionTarget != null)
+            throw new ParsingException("dabsh: empty commands cannot be redirected to files.");
+        throw new ParsingException("dabsh: invalid syntax near pipe symbol");
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Finds commands by name.
+// ServiceLoader creates the commands one at a time while a name is being searched for,
+// so the shell only loads the commands listed up to the ones it actually runs, and each of them once.
+// After that, finding a command is a single map lookup.
+class Commands {
+    private static final Map<String, Command> loaded = new ConcurrentHashMap<>();
+    private static final Iterator<Command> providers = ServiceLoader.load(Command.class, Command.class.getClassLoader()).iterator();
+
+    // Returns the command called name, or null if there is none
+    public static Command get(String name) {
+        Command command = loaded.get(name);
+        if (command != null)
+            return command;
+        synchronized (providers) {
+            while (!loaded.containsKey(name) && providers.hasNext())
+                load(providers.next());
+            return loaded.get(name);
+        }
+    }
+
+    // Every command, by name
+    public static List<Command> all() {
+        synchronized (providers) {
+            while (providers.hasNext())
+                load(providers.next());
+        }
+        List<Command> ret = new ArrayList<>(loaded.values());
+        ret.sort(Comparator.comparing(Command::getName));
+        return ret;
+    }
+
+    private static void load(Command command) {
+        //the first provider of a name wins, so a command cannot be replaced by one found later
+        loaded.putIfAbsent(command.getName(), command);
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Finds what the word being typed can be completed to, for the line editor.
+// The first word of a command is completed from a trie of the command names, built once.
+// Other words are completed as paths, from the listing of their directory in DirectoryCache.
+// The names of the last directory completed in are kept sorted, and a prefix is found in them by binary search,
+// so completing again in the same directory, even one of 100k entries, does not go through its entries again.
+// The sorted names are rebuilt only once DirectoryCache drops the listing they came from.
+class Completer {
+    // No more candidates than this are listed
+    static final int MAX_CANDIDATES = 200;
+
+    // What a word can be completed to
+    static final class Completion {
+        private final List<String> candidates;
+        private final boolean truncated;
+        private final String common;
+        private final boolean directory;
+
+        Completion(List<String> candidates, boolean truncated, String common, boolean directory) {
+            this.candidates = candidates;
+            this.truncated = truncated;
+            this.common = common;
+            this.directory = directory;
+        }
+
+        // Up to MAX_CANDIDATES of the names the word can be completed to, sorted, directories ending with '/'
+        public List<String> getCandidates() {
+            return candidates;
+        }
+
+        // Whether there are more candidates than MAX_CANDIDATES
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        // What every candidate starts with, which the word can be completed to right away
+        public String getCommon() {
+            return common;
+        }
+
+        // Whether the only candidate is a directory, so the word goes on after it rather than ending
+        public boolean isDirectory() {
+            return directory;
+        }
+    }
+
+    private final Session session;
+    private Trie commands;
+
+    private Path indexedDir;
+    private List<DirectoryCache.Entry> indexedListing;
+    private String[] names;
+    private boolean[] directories;
+
+    public Completer(Session session) {
+        this.session = session;
+    }
+
+    // Completes the command name that starts with prefix
+    public Completion completeCommand(String prefix) {
+        if (commands == null) {
+            commands = new Trie();
+            for (Command command : Commands.all())
+                commands.add(command.getName());
+        }
+        List<String> matches = commands.withPrefix(prefix);
+        String common = matches.isEmpty() ? prefix : commonPrefix(matches.get(0), matches.get(matches.size() - 1));
+        return new Completion(matches, false, common, false);
+    }
+
+    // Completes word as a path. What the completion adds goes after the last '/' of word,
+    // and common is the whole word as completed.
+    public Completion completePath(String word) {
+        int slash = word.lastIndexOf('/');
+        String dirPart = word.substring(0, slash + 1), prefix = word.substring(slash + 1);
+        Path dir;
+        if (dirPart.isEmpty())
+            dir = Paths.get(session.getWorkingDir());
+        else if (dirPart.startsWith("~/"))
+            dir = Paths.get(session.getHomeDir(), dirPart.substring(2));
+        else
+            dir = Paths.get(session.resolve(dirPart));
+        try {
+            index(dir.normalize());
+        } catch (IOException | RuntimeException ex) {
+            return new Completion(Collections.emptyList(), false, word, false);
+        }
+
+        //the names are sorted, so those starting with prefix are all together, and only as many as are listed are looked at
+        int from = lowerBound(prefix), to = lowerBound(prefix + Character.MAX_VALUE);
+        boolean hidden = prefix.startsWith(".");
+        List<String> candidates = new ArrayList<>();
+        int first = -1, last = -1;
+        for (int i = from; i < to && candidates.size() <= MAX_CANDIDATES; ++i) {
+            if (!hidden && names[i].startsWith("."))
+                continue;
+            if (first == -1)
+                first = i;
+            candidates.add(directories[i] ? names[i] + "/" : names[i]);
+        }
+        for (int i = to - 1; i >= from && last == -1; --i)
+            if (hidden || !names[i].startsWith("."))
+                last = i;
+        if (first == -1)
+            return new Completion(candidates, false, word, false);
+        boolean truncated = candidates.size() > MAX_CANDIDATES;
+        if (truncated)
+            candidates.remove(MAX_CANDIDATES);
+        return new Completion(candidates, truncated, dirPart + commonPrefix(names[first], names[last]), first == last && directories[first]);
+    }
+
+    // Sorts the names of dir, unless they are already sorted from the listing DirectoryCache still has
+    private void index(Path dir) throws IOException {
+        List<DirectoryCache.Entry> listing = DirectoryCache.list(dir);
+        if (dir.equals(indexedDir) && listing == indexedListing)
+            return;
+        DirectoryCache.Entry[] entries = listing.toArray(new DirectoryCache.Entry[0]);
+        Arrays.sort(entries, (a, b) -> a.getName().compareTo(b.getName()));
+        names = new String[entries.length];
+        directories = new boolean[entries.length];
+        for (int i = 0; i < entries.length; ++i) {
+            names[i] = entries[i].getName();
+            directories[i] = entries[i].isDirectory();
+        }
+        indexedDir = dir;
+        indexedListing = listing;
+    }
+
+    // The index of the first name not less than prefix
+    private int lowerBound(String prefix) {
+        int low = 0, high = names.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (names[middle].compareTo(prefix) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    // For sorted words, what the first and the last have in common is what all of them have
+    private static String commonPrefix(String first, String last) {
+        int i = 0;
+        while (i < first.length() && i < last.length() && first.charAt(i) == last.charAt(i))
+            ++i;
+        return first.substring(0, i);
+    }
+}
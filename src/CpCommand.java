@@ -0,0 +1,188 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+public class CpCommand implements Command {
+    @Override
+    public String getName() {
+        return "cp";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-r] [-j jobs] [--verify] arg1: file/dir arg2: file/dir\nCopies file/directory from arg1 to arg2, -r copies directories with their contents, -j copies that many files at the same time, --verify reads every copy back and checks it has the same SHA-256 checksum as what was read from its source.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-j", "-r", "--verify");
+    }
+
+    @Override
+    public List<String> getValueOptions() {
+        return Collections.singletonList("-j");
+    }
+
+    @Override
+    public boolean changesFiles() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        checkSources(parser);
+    }
+
+    // cp and mv both take at least one source followed by the destination
+    static void checkSources(Parser parser) throws ParsingException {
+        parser.checkJobsOption("-j");
+        if (parser.getArguments().length == 0)
+            throw new ParsingException(String.format("%s: too few arguments.", parser.getCmd()));
+        else if (parser.getArguments().length == 1)
+            throw new ParsingException(String.format("%s: destination argument missing.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        boolean recursive = parser.hasOption("-r"), verify = parser.hasOption("--verify");
+        Path destinationDir = Paths.get(args[args.length - 1]);
+
+        if (args.length > 2 && !destinationDir.toFile().isDirectory()) {
+            throw new TerminalException(String.format("cp: target %s is not a directory.", destinationDir.getFileName()));
+        }
+        forEachSource(args, "cp", "copied", jobs(parser), source -> copy(source, destinationDir, "cp", recursive, verify, treeParallelism(parser), stdout), stdout);
+    }
+
+    // Number of files copied at the same time, as given by -j
+    static int jobs(Parser parser) {
+        return parser.hasOption("-j") ? Integer.parseInt(parser.getOption("-j")) : 1;
+    }
+
+    // Number of threads a directory tree is copied, moved or removed on: as many as -j gives,
+    // or 0 for the common pool, with a thread per core, when it is not given
+    static int treeParallelism(Parser parser) {
+        return parser.hasOption("-j") ? jobs(parser) : 0;
+    }
+
+    // Returns the number of bytes copied, or IGNORED for a directory without recursive
+    static long copy(Path sourcePath, Path destinationPath, String cmd, boolean recursive, PrintStream stdout) throws TerminalException {
+        return copy(sourcePath, destinationPath, cmd, recursive, false, 0, stdout);
+    }
+
+    // With verify, every file is hashed as it is copied, then read back and checked against that hash
+    // Directories are copied on parallelism threads, as given by treeParallelism
+    static long copy(Path sourcePath, Path destinationPath, String cmd, boolean recursive, boolean verify, int parallelism, PrintStream stdout) throws TerminalException {
+        Path dest = destinationPath;
+        //if no filename is given, but is needed, put it.
+        if (destinationPath.toFile().isDirectory())
+            dest = destinationPath.resolve(sourcePath.getFileName());
+
+        if (sourcePath.toFile().isDirectory() && recursive) {
+            return FileTree.copyTree(cmd, sourcePath, dest, verify, parallelism);
+        } else if (sourcePath.toFile().isDirectory()) {
+            stdout.println(String.format("%s: Directory %s was ignored.", cmd, sourcePath.getFileName()));
+            return IGNORED;
+        } else if (sourcePath.toFile().isFile()) {
+            long size;
+            boolean intact = true;
+            try {
+                if (verify)
+                    intact = Checksum.copyVerified(sourcePath, dest);
+                else
+                    Files.copy(sourcePath, dest, new StandardCopyOption[]{StandardCopyOption.REPLACE_EXISTING});
+                size = Files.size(dest);
+            } catch (Exception ignored) {
+                throw new TerminalException(String.format("%s: cannot copy %s: IO error", cmd, sourcePath.getFileName()));
+            }
+            Metrics.read(verify ? 2 * size : size);
+            Metrics.written(size);
+            Metrics.touched(1);
+            if (!intact)
+                throw new TerminalException(String.format("%s: %s: the copy does not match the source.", cmd, sourcePath.getFileName()));
+            return size;
+        } else {
+            throw new TerminalException(String.format("%s: cannot copy %s, no such file or directory.", cmd, sourcePath.getFileName()));
+        }
+    }
+
+    // Returned by a FileOperation for a source it left alone, such as a directory without -r
+    static final long IGNORED = -1;
+
+    // Something done to one of the sources of cp or mv, returning the number of bytes it handled, or IGNORED
+    interface FileOperation {
+        long apply(Path source) throws TerminalException;
+    }
+
+    // Applies operation to every argument except the last one, which is the destination.
+    // With more than one job the sources are handled on a pool of that many threads,
+    // and unlike the serial run, a failing file does not stop the others; all failures are reported at the end.
+    static void forEachSource(String[] args, String cmd, String verb, int jobs, FileOperation operation, PrintStream stdout) throws TerminalException {
+        if (jobs == 1) {
+            for (int i = 0; i < args.length - 1; ++i) {
+                operation.apply(Paths.get(args[i]));
+            }
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(min(jobs, args.length - 1));
+        long start = System.nanoTime();
+        List<Future<Long>> results = new ArrayList<>();
+        //the sources are counted on the pool's threads, and added to this command once they are all done
+        List<Metrics.Usage> usages = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < args.length - 1; ++i) {
+            Path source = Paths.get(args[i]);
+            results.add(pool.submit(() -> {
+                usages.add(Metrics.begin());
+                try {
+                    return operation.apply(source);
+                } finally {
+                    Metrics.endTask();
+                }
+            }));
+        }
+        pool.shutdown();
+
+        List<String> errors = new ArrayList<>();
+        long bytes = 0;
+        int files = 0;
+        for (Future<Long> result : results) {
+            try {
+                long handled = result.get();
+                //a skipped directory was neither copied nor moved
+                if (handled != IGNORED) {
+                    bytes += handled;
+                    ++files;
+                }
+            } catch (ExecutionException ex) {
+                errors.add(ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new TerminalException(String.format("%s: interrupted.", cmd));
+            }
+        }
+        for (Metrics.Usage usage : usages)
+            Metrics.add(usage);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stdout.println(String.format("%s: %s %d files (%.2f MB) in %.2f s, %.2f MB/s with %d jobs.",
+                cmd, verb, files, bytes / 1e6, seconds, bytes / 1e6 / max(seconds, 1e-9), jobs));
+
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+    }
+}
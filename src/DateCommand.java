@@ -0,0 +1,34 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+public class DateCommand implements Command {
+    @Override
+    public String getName() {
+        return "date";
+    }
+
+    @Override
+    public String getHelp() {
+        return "no arguments\nPrints current system date and time.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length > 0)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        Calendar calendar = Calendar.getInstance();
+        Terminal.print(stdout, new SimpleDateFormat("EEE, d MMM yyyy HH:mm:ss", Locale.ENGLISH).format(calendar.getTime().getTime()));
+    }
+}
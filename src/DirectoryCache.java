@@ -0,0 +1,210 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Remembers the contents of recently listed directories, so ls and wildcard expansion
+// do not list the same directory again on every command.
+// Every cached directory is watched, and its listing is dropped as soon as anything inside it changes.
+// The cache is bounded both in directories and in total entries, evicting the least recently used first.
+// Where the file system cannot be watched nothing is cached, and every listing is read fresh.
+class DirectoryCache {
+    private static final int MAX_DIRECTORIES = 1024;
+    private static final int MAX_ENTRIES = 500000;
+    // bigger directories are never cached, so a single one cannot flush everything else
+    private static final int MAX_DIRECTORY_ENTRIES = 200000;
+
+    static final class Entry {
+        private final String name;
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+
+        Entry(String name, boolean directory, long size, long lastModified) {
+            this.name = name;
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        // In milliseconds since the epoch
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private static final class Listing {
+        private final List<Entry> entries;
+        private final WatchKey key;
+
+        Listing(List<Entry> entries, WatchKey key) {
+            this.entries = entries;
+            this.key = key;
+        }
+    }
+
+    private static final Map<Path, Listing> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static int cachedEntries = 0;
+    private static WatchService watcher;
+
+    static {
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            Thread t = new Thread(DirectoryCache::watch, "directory-cache-watcher");
+            t.setDaemon(true);
+            t.start();
+        } catch (IOException | UnsupportedOperationException ignored) {
+            watcher = null;
+        }
+    }
+
+    // Returns the entries of dir in no particular order, from the cache if possible
+    public static List<Entry> list(Path dir) throws IOException {
+        synchronized (cache) {
+            Listing listing = cache.get(dir.toAbsolutePath().normalize());
+            if (listing != null)
+                return listing.entries;
+        }
+        List<Entry> entries = new ArrayList<>();
+        forEach(dir, entries::add);
+        return entries;
+    }
+
+    // Hands every entry of dir to action as soon as it is read, in no particular order.
+    // Unlike list, nothing is held in memory for directories too big to cache.
+    public static void forEach(Path dir, Consumer<Entry> action) throws IOException {
+        dir = dir.toAbsolutePath().normalize();
+        List<Entry> cached = null;
+        synchronized (cache) {
+            Listing listing = cache.get(dir);
+            if (listing != null)
+                cached = listing.entries;
+        }
+        if (cached != null) {
+            cached.forEach(action);
+            return;
+        }
+
+        //watch before reading, so no change can slip in between the two unnoticed
+        WatchKey key = register(dir);
+        List<Entry> entries = key == null ? null : new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                Entry entry = describe(path);
+                action.accept(entry);
+                if (entries != null && entries.size() == MAX_DIRECTORY_ENTRIES)
+                    entries = null;
+                else if (entries != null)
+                    entries.add(entry);
+            }
+        } catch (IOException ex) {
+            if (key != null)
+                cancel(dir, key);
+            throw ex;
+        }
+        if (key == null)
+            return;
+
+        synchronized (cache) {
+            //the key is cancelled if the directory changed while it was being read
+            if (key.isValid() && entries != null && !cache.containsKey(dir)) {
+                cache.put(dir, new Listing(Collections.unmodifiableList(entries), key));
+                cachedEntries += entries.size();
+                evict();
+            } else if (!cache.containsKey(dir)) {
+                key.cancel();
+            }
+        }
+    }
+
+    // Forgets every listing, used after commands that change the file system,
+    // so that they are visible right away rather than once the watcher catches up
+    public static void clear() {
+        synchronized (cache) {
+            for (Listing listing : cache.values())
+                listing.key.cancel();
+            cache.clear();
+            cachedEntries = 0;
+        }
+    }
+
+    // Reads the name, type, size and modification time of path with a single stat
+    public static Entry describe(Path path) {
+        String name = path.getFileName() == null ? path.toString() : path.getFileName().toString();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            //a broken link, describe the link itself
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ignored) {
+                return new Entry(name, false, 0, 0);
+            }
+        }
+        return new Entry(name, attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    private static void cancel(Path dir, WatchKey key) {
+        synchronized (cache) {
+            if (!cache.containsKey(dir))
+                key.cancel();
+        }
+    }
+
+    private static WatchKey register(Path dir) {
+        if (watcher == null)
+            return null;
+        try {
+            return dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException ignored) {
+            return null;
+        }
+    }
+
+    private static void evict() {
+        Iterator<Listing> eldest = cache.values().iterator();
+        while (eldest.hasNext() && (cache.size() > MAX_DIRECTORIES || cachedEntries > MAX_ENTRIES)) {
+            Listing listing = eldest.next();
+            listing.key.cancel();
+            cachedEntries -= listing.entries.size();
+            eldest.remove();
+        }
+    }
+
+    private static void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            key.pollEvents();
+            synchronized (cache) {
+                Path dir = (Path) key.watchable();
+                Listing listing = cache.get(dir);
+                //an event of an older key must not drop a listing that is newer than it
+                if (listing != null && listing.key == key) {
+                    cache.remove(dir);
+                    cachedEntries -= listing.entries.size();
+                }
+                key.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class DuCommand implements Command {
+    private static final String UNITS = "KMGTPE";
+
+    @Override
+    public String getName() {
+        return "du";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-s] [-h] [arg1.n: Files or directories]\nDisplays the total size of every directory below the arguments, default: current working directory, counting everything inside it, in no particular order, then that of each argument. -s only displays the arguments, -h displays sizes as 1.5K, 20M and so on rather than in bytes.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-s", "-h");
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) {
+        if (parser.getArguments().length == 0)
+            parser.setArguments(new String[]{parser.getSession().getWorkingDir()});
+    }
+
+    // Sizes are the sizes of the files, not the disk space they take
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        boolean summary = parser.hasOption("-s"), human = parser.hasOption("-h");
+        Session session = terminal.getSession();
+        TreeWalker.Visitor visitor = new TreeWalker.Visitor() {
+            @Override
+            public String visit(Path path, BasicFileAttributes attrs) {
+                return null;
+            }
+
+            @Override
+            public String leave(Path dir, long size) {
+                return summary ? null : format(size, human) + "\t" + session.relativize(dir);
+            }
+        };
+        List<String> errors = new ArrayList<>();
+        for (String arg : parser.getArguments()) {
+            try {
+                Path path = Paths.get(arg);
+                long size = new TreeWalker("du", visitor).walk(path, stdout);
+                //without -s a directory has already been printed when the walk left it
+                if (summary || !Files.isDirectory(path))
+                    Terminal.print(stdout, format(size, human) + "\t" + session.relativize(path));
+            } catch (TerminalException ex) {
+                errors.add(ex.getMessage());
+            }
+            if (stdout.checkError())
+                break;
+        }
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+    }
+
+    // size in bytes, or with -h in the largest unit that keeps it at least 1, with one decimal below 10
+    static String format(long size, boolean human) {
+        if (!human || size < 1024)
+            return Long.toString(size);
+        double value = size;
+        int unit = -1;
+        while (value >= 1024 && unit < UNITS.length() - 1) {
+            value /= 1024;
+            ++unit;
+        }
+        return (value < 10 ? String.format(Locale.ENGLISH, "%.1f", value) : Long.toString(Math.round(value))) + UNITS.charAt(unit);
+    }
+}
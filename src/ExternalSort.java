@@ -0,0 +1,152 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Sorts more lines than fit in memory, for sort.
+// Lines are kept as raw bytes until they reach the memory budget, then sorted on all cores and spilled
+// to a temporary file as a sorted run. The runs, and whatever is still in memory, are merged at the end,
+// at most MERGE_WIDTH at a time so that huge inputs do not open thousands of files at once.
+// The runs are deleted on close.
+class ExternalSort implements Closeable {
+    private static final int MERGE_WIDTH = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // What a line costs in memory beyond its bytes: the array header and the reference to it
+    private static final int LINE_OVERHEAD = 32;
+
+    private final Comparator<byte[]> order;
+    private final long budget;
+    private List<byte[]> lines = new ArrayList<>();
+    private long used = 0;
+    private final Deque<Path> runs = new ArrayDeque<>();
+
+    public ExternalSort(Comparator<byte[]> order, long budget) {
+        this.order = order;
+        this.budget = budget;
+    }
+
+    public void add(byte[] line) throws IOException {
+        lines.add(line);
+        used += line.length + LINE_OVERHEAD;
+        if (used >= budget)
+            spill();
+    }
+
+    // The number of runs spilled to disk so far
+    public int getRuns() {
+        return runs.size();
+    }
+
+    // Writes all the lines, in order, each ending with '\n'
+    public void writeTo(OutputStream out) throws IOException {
+        byte[][] sorted = sortLines();
+        if (runs.isEmpty()) {
+            for (byte[] line : sorted) {
+                out.write(line);
+                out.write('\n');
+            }
+            return;
+        }
+        //merge down to few enough runs to read them all at once
+        while (runs.size() > MERGE_WIDTH) {
+            List<Path> group = new ArrayList<>();
+            for (int i = 0; i < MERGE_WIDTH; ++i)
+                group.add(runs.poll());
+            Path merged = newRun();
+            try (OutputStream run = new BufferedOutputStream(Files.newOutputStream(merged), BUFFER_SIZE)) {
+                merge(group, null, run);
+            }
+            runs.add(merged);
+            for (Path path : group)
+                Files.delete(path);
+        }
+        merge(new ArrayList<>(runs), sorted, out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lines = new ArrayList<>();
+        for (Path run : runs)
+            Files.deleteIfExists(run);
+        runs.clear();
+    }
+
+    private byte[][] sortLines() {
+        byte[][] sorted = lines.toArray(new byte[0][]);
+        Arrays.parallelSort(sorted, order);
+        lines = new ArrayList<>();
+        used = 0;
+        return sorted;
+    }
+
+    private void spill() throws IOException {
+        byte[][] sorted = sortLines();
+        Path run = newRun();
+        runs.add(run);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE)) {
+            for (byte[] line : sorted) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+    }
+
+    private static Path newRun() throws IOException {
+        Path run = Files.createTempFile("dabsh-sort", ".run");
+        run.toFile().deleteOnExit();
+        return run;
+    }
+
+    // One of the sorted sequences being merged, with the line it is at
+    private static final class Head {
+        private final LineReader reader;
+        private final byte[][] lines;
+        private int index = 0;
+        private byte[] line;
+
+        // Exactly one of reader and lines is given
+        Head(LineReader reader, byte[][] lines) {
+            this.reader = reader;
+            this.lines = lines;
+        }
+
+        // Moves to the next line, returning false once there are none
+        boolean advance() throws IOException {
+            if (reader != null)
+                line = reader.next();
+            else
+                line = index < lines.length ? lines[index++] : null;
+            return line != null;
+        }
+    }
+
+    // Merges the runs, and the sorted lines if not null, into out
+    private void merge(List<Path> paths, byte[][] sorted, OutputStream out) throws IOException {
+        PriorityQueue<Head> queue = new PriorityQueue<>(paths.size() + 1, (a, b) -> order.compare(a.line, b.line));
+        List<LineReader> readers = new ArrayList<>();
+        try {
+            for (Path path : paths) {
+                LineReader reader = new LineReader(Files.newInputStream(path));
+                readers.add(reader);
+                Head head = new Head(reader, null);
+                if (head.advance())
+                    queue.add(head);
+            }
+            if (sorted != null) {
+                Head head = new Head(null, sorted);
+                if (head.advance())
+                    queue.add(head);
+            }
+            while (!queue.isEmpty()) {
+                Head head = queue.poll();
+                out.write(head.line);
+                out.write('\n');
+                if (head.advance())
+                    queue.add(head);
+            }
+        } finally {
+            for (LineReader reader : readers)
+                reader.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class FgCommand implements Command {
+    @Override
+    public String getName() {
+        return "fg";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[arg1: job]\nWaits for a background job, the latest if omitted, and displays its output as it comes. At the prompt, pressing Enter leaves the job running in the background again.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length > 1)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        Jobs jobs = terminal.getJobs();
+        Jobs.Job job = jobs.get(args.length == 0 ? null : args[0]);
+        //its output already comes as it is printed, and waiting for it would never end
+        if (job.isEndless())
+            throw new TerminalException(String.format("fg: job %d runs until it is killed, use kill %d to stop it.", job.getId(), job.getId()));
+        job.attach(stdout);
+        boolean finished;
+        try {
+            finished = jobs.waitFor(job, terminal.isInteractive() ? terminal.getSession().getIn() : null);
+        } finally {
+            job.detach();
+        }
+        if (!finished) {
+            stdout.println(String.format("[%d] back in the background", job.getId()));
+            return;
+        }
+        job.printOutput(stdout);
+        jobs.remove(job);
+        if (job.getState() == Jobs.State.Failed)
+            throw new TerminalException(job.getError());
+        if (job.getState() == Jobs.State.Killed)
+            throw new TerminalException(String.format("fg: job %d was killed.", job.getId()));
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Prints what is appended to files as they grow, for tail -f.
+// Every file is kept open at the offset printed so far, and only the bytes past it are ever read.
+// The directories of the files are watched, so a write is noticed as soon as it happens and nothing runs while
+// the files are quiet; they are also checked every second in case an event is missed, and every 100 ms
+// where the file system cannot be watched.
+// A file that shrinks was truncated, and is printed again from its start. A file that is replaced,
+// as when a log is rotated, is finished first, then the new file is followed from its start.
+class FileFollower implements Closeable {
+    private static final long WATCHED_CHECK_MILLIS = 1000;
+    private static final long POLL_MILLIS = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final class Followed {
+        private final Path path;
+        private final String name;
+        private FileChannel channel;
+        private Object fileKey;
+        private long position;
+
+        Followed(Path path, String name) {
+            this.path = path;
+            this.name = name;
+        }
+    }
+
+    private final PrintStream stdout;
+    private final boolean named;
+    private final List<Followed> files = new ArrayList<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private WatchService watcher;
+    private Followed last;
+
+    // named is whether the output of every file starts with a "==> name <==" header, for more than one file
+    public FileFollower(PrintStream stdout, boolean named) {
+        this.stdout = stdout;
+        this.named = named;
+    }
+
+    // Follows path, printing it from start to its current end right away
+    public void add(Path path, String name, long start) throws IOException {
+        Followed file = new Followed(path, name);
+        files.add(file);
+        open(file);
+        file.position = start;
+        print(file);
+    }
+
+    // Prints whatever is appended to the files until the thread is interrupted or stdout fails
+    public void run() throws IOException {
+        long timeout = watch() ? WATCHED_CHECK_MILLIS : POLL_MILLIS;
+        try {
+            while (!stdout.checkError()) {
+                if (watcher == null) {
+                    Thread.sleep(timeout);
+                } else {
+                    WatchKey key = watcher.poll(timeout, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        //the directory is gone, only polling is left for it
+                        if (!key.reset())
+                            timeout = POLL_MILLIS;
+                    }
+                }
+                for (Followed file : files)
+                    check(file);
+            }
+        } catch (InterruptedException | ClosedByInterruptException ex) {
+            //killed, which is how following ends
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Followed file : files)
+            if (file.channel != null)
+                file.channel.close();
+        if (watcher != null)
+            watcher.close();
+    }
+
+    // Watches the directories of the files, returning false if they cannot be watched
+    private boolean watch() {
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            Set<Path> dirs = new HashSet<>();
+            for (Followed file : files)
+                dirs.add(file.path.toAbsolutePath().getParent());
+            for (Path dir : dirs)
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return true;
+        } catch (IOException | UnsupportedOperationException ex) {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException ignored) {
+                }
+            }
+            watcher = null;
+            return false;
+        }
+    }
+
+    private void check(Followed file) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file.path, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            attrs = null;
+        }
+        if (file.channel != null) {
+            if (file.channel.size() < file.position)
+                file.position = 0;
+            print(file);
+            boolean replaced = attrs == null || (file.fileKey != null && !file.fileKey.equals(attrs.fileKey()));
+            if (!replaced)
+                return;
+            file.channel.close();
+            file.channel = null;
+        }
+        if (attrs != null && attrs.isRegularFile()) {
+            open(file);
+            file.position = 0;
+            print(file);
+        }
+    }
+
+    private void open(Followed file) throws IOException {
+        file.channel = FileChannel.open(file.path, StandardOpenOption.READ);
+        file.fileKey = Files.readAttributes(file.path, BasicFileAttributes.class).fileKey();
+        Metrics.touched(1);
+    }
+
+    // Prints the file from where it was left to its current end
+    private void print(Followed file) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = file.channel.read(buffer, file.position);
+            if (read <= 0)
+                break;
+            if (named && last != file) {
+                if (last != null)
+                    stdout.println();
+                stdout.println("==> " + file.name + " <==");
+            }
+            last = file;
+            stdout.write(buffer.array(), 0, read);
+            file.position += read;
+            Metrics.read(read);
+            Metrics.written(read);
+        }
+        stdout.flush();
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Recursive operations on directory trees, run on a fork-join pool.
+// Every subdirectory becomes its own task, and every file in it is copied or deleted as a separate leaf task,
+// so big trees are spread across all cores.
+// Failures do not stop the walk; they are collected and thrown together once it is done.
+class FileTree {
+    private final String cmd;
+    private final ForkJoinPool pool;
+    private final boolean verify;
+    private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder files = new LongAdder();
+
+    // parallelism <= 0 uses the common pool, which has a thread per core
+    public FileTree(String cmd, int parallelism) {
+        this(cmd, parallelism, false);
+    }
+
+    // With verify, every file copied is read back and checked against the checksum of what was read from its source
+    public FileTree(String cmd, int parallelism, boolean verify) {
+        this.cmd = cmd;
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        this.verify = verify;
+    }
+
+    // Copies source (a directory) to target, creating target and everything below it.
+    // Returns the number of bytes copied.
+    public long copy(Path source, Path target) throws TerminalException {
+        if (target.toAbsolutePath().normalize().startsWith(source.toAbsolutePath().normalize()))
+            throw new TerminalException(String.format("%s: cannot copy directory %s into itself.", cmd, source.getFileName()));
+        run(new CopyTask(source, target));
+        return bytes.sum();
+    }
+
+    // Deletes root (a directory) and everything below it.
+    public void delete(Path root) throws TerminalException {
+        run(new DeleteTask(root));
+    }
+
+    // Number of files and directories copied or deleted so far
+    public long getFiles() {
+        return files.sum();
+    }
+
+    // Copies a tree on a pool of parallelism threads, or the common pool if it is 0,
+    // counting it in the metrics of the running command
+    public static long copyTree(String cmd, Path source, Path target, boolean verify, int parallelism) throws TerminalException {
+        FileTree tree = new FileTree(cmd, parallelism, verify);
+        try {
+            long size = tree.copy(source, target);
+            Metrics.read(verify ? 2 * size : size);
+            Metrics.written(size);
+            return size;
+        } finally {
+            Metrics.touched(tree.getFiles());
+        }
+    }
+
+    // Deletes a tree on a pool of parallelism threads, or the common pool if it is 0,
+    // counting it in the metrics of the running command
+    public static void deleteTree(String cmd, Path root, int parallelism) throws TerminalException {
+        FileTree tree = new FileTree(cmd, parallelism);
+        try {
+            tree.delete(root);
+        } finally {
+            Metrics.touched(tree.getFiles());
+        }
+    }
+
+    private void run(RecursiveAction task) throws TerminalException {
+        try {
+            pool.invoke(task);
+        } finally {
+            if (pool != ForkJoinPool.commonPool())
+                pool.shutdown();
+        }
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+    }
+
+    private static List<Path> children(Path dir) throws IOException {
+        List<Path> ret = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream)
+                ret.add(child);
+        }
+        return ret;
+    }
+
+    private static boolean isDirectory(Path path) {
+        return Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    private class CopyTask extends RecursiveAction {
+        private final Path source;
+        private final Path target;
+
+        CopyTask(Path source, Path target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        protected void compute() {
+            if (!isDirectory(source)) {
+                try {
+                    //links are copied as they are, there is nothing to verify
+                    if (verify && Files.isRegularFile(source, LinkOption.NOFOLLOW_LINKS)) {
+                        if (!Checksum.copyVerified(source, target))
+                            errors.add(String.format("%s: %s: the copy does not match the source.", cmd, source));
+                    } else {
+                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+                    }
+                    bytes.add(Files.size(target));
+                    files.increment();
+                } catch (IOException ex) {
+                    errors.add(String.format("%s: cannot copy %s: IO error", cmd, source));
+                }
+                return;
+            }
+
+            List<CopyTask> tasks = new ArrayList<>();
+            try {
+                Files.createDirectories(target);
+                files.increment();
+                for (Path child : children(source))
+                    tasks.add(new CopyTask(child, target.resolve(child.getFileName().toString())));
+            } catch (IOException ex) {
+                errors.add(String.format("%s: cannot copy directory %s: IO error", cmd, source));
+                return;
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private class DeleteTask extends RecursiveAction {
+        private final Path path;
+
+        DeleteTask(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        protected void compute() {
+            if (isDirectory(path)) {
+                List<DeleteTask> tasks = new ArrayList<>();
+                try {
+                    for (Path child : children(path))
+                        tasks.add(new DeleteTask(child));
+                } catch (IOException ex) {
+                    errors.add(String.format("%s: cannot remove %s: IO error.", cmd, path));
+                    return;
+                }
+                //the directory can only go once everything inside it is gone
+                invokeAll(tasks);
+            }
+            try {
+                Files.delete(path);
+                files.increment();
+            } catch (DirectoryNotEmptyException ignored) {
+                //a failure inside it has already been reported
+            } catch (IOException ex) {
+                errors.add(String.format("%s: cannot remove %s: IO error.", cmd, path));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.LongPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class FindCommand implements Command {
+    private static final Pattern SIZE = Pattern.compile("([+-]?)(\\d+)([ckMG]?)");
+    private static final Pattern DAYS = Pattern.compile("([+-]?)(\\d+)");
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    @Override
+    public String getName() {
+        return "find";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-name pattern] [-type f | d | l] [-size [+|-]n[c | k | M | G]] [-mtime [+|-]n] [arg1.n: Directories]\nDisplays every file and directory below the directories, default: current working directory, that matches all the tests given, in no particular order. -name matches the name against a wildcard pattern, -type is f for files, d for directories and l for links, -size is in 512-byte blocks unless given in bytes (c) or in k, M or G, -mtime is the age in whole days. +n means more than n, -n less than n.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-name", "-type", "-size", "-mtime");
+    }
+
+    @Override
+    public List<String> getValueOptions() {
+        return getOptions();
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length == 0)
+            parser.setArguments(new String[]{parser.getSession().getWorkingDir()});
+        filter(parser, System.currentTimeMillis());
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        BiPredicate<Path, BasicFileAttributes> filter;
+        try {
+            filter = filter(parser, System.currentTimeMillis());
+        } catch (ParsingException ex) {
+            throw new TerminalException(ex.getMessage());
+        }
+        Session session = terminal.getSession();
+        TreeWalker.Visitor visitor = (path, attrs) -> filter.test(path, attrs) ? session.relativize(path) : null;
+        List<String> errors = new ArrayList<>();
+        for (String arg : parser.getArguments()) {
+            try {
+                new TreeWalker("find", visitor).walk(Paths.get(arg), stdout);
+            } catch (TerminalException ex) {
+                errors.add(ex.getMessage());
+            }
+            if (stdout.checkError())
+                break;
+        }
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+    }
+
+    // All the tests of the options combined, with ages counted from now
+    private static BiPredicate<Path, BasicFileAttributes> filter(Parser parser, long now) throws ParsingException {
+        BiPredicate<Path, BasicFileAttributes> ret = (path, attrs) -> true;
+        if (parser.hasOption("-name")) {
+            PathMatcher matcher;
+            try {
+                matcher = FileSystems.getDefault().getPathMatcher("glob:" + parser.getOption("-name"));
+            } catch (IllegalArgumentException ex) {
+                throw new ParsingException(String.format("find: invalid pattern %s.", parser.getOption("-name")));
+            }
+            ret = ret.and((path, attrs) -> path.getFileName() != null && matcher.matches(path.getFileName()));
+        }
+        if (parser.hasOption("-type")) {
+            switch (parser.getOption("-type")) {
+                case "f":
+                    ret = ret.and((path, attrs) -> attrs.isRegularFile());
+                    break;
+                case "d":
+                    ret = ret.and((path, attrs) -> attrs.isDirectory());
+                    break;
+                case "l":
+                    ret = ret.and((path, attrs) -> attrs.isSymbolicLink());
+                    break;
+                default:
+                    throw new ParsingException(String.format("find: unknown type %s, expected f, d or l.", parser.getOption("-type")));
+            }
+        }
+        if (parser.hasOption("-size")) {
+            Matcher m = SIZE.matcher(parser.getOption("-size"));
+            if (!m.matches())
+                throw new ParsingException(String.format("find: invalid size %s.", parser.getOption("-size")));
+            long unit = unit(m.group(3));
+            long n = Long.parseLong(m.group(2));
+            LongPredicate compare = compare(m.group(1), n);
+            //sizes are rounded up to whole units, as in find
+            ret = ret.and((path, attrs) -> compare.test((attrs.size() + unit - 1) / unit));
+        }
+        if (parser.hasOption("-mtime")) {
+            Matcher m = DAYS.matcher(parser.getOption("-mtime"));
+            if (!m.matches())
+                throw new ParsingException(String.format("find: invalid number of days %s.", parser.getOption("-mtime")));
+            LongPredicate compare = compare(m.group(1), Long.parseLong(m.group(2)));
+            ret = ret.and((path, attrs) -> compare.test((now - attrs.lastModifiedTime().toMillis()) / DAY_MILLIS));
+        }
+        return ret;
+    }
+
+    private static long unit(String suffix) {
+        switch (suffix) {
+            case "c":
+                return 1;
+            case "k":
+                return 1024;
+            case "M":
+                return 1024 * 1024;
+            case "G":
+                return 1024 * 1024 * 1024;
+            default:
+                return 512;
+        }
+    }
+
+    // "+" is more than n, "-" less than n, and nothing exactly n
+    private static LongPredicate compare(String sign, long n) {
+        if (sign.equals("+"))
+            return value -> value > n;
+        if (sign.equals("-"))
+            return value -> value < n;
+        return value -> value == n;
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+// A compiled wildcard pattern such as "*.txt", "src/**/*.java" or "log[0-9]?.txt".
+// The part of the pattern before the first wildcard is kept as the base directory to search,
+// and the rest is compiled once into a PathMatcher that is applied to paths relative to that base.
+// Compiled patterns are cached, so running the same wildcard again does not compile it again.
+class Glob {
+    private static final int CACHE_SIZE = 256;
+    private static final String WILDCARD_CHARS = "*?[{";
+
+    private static final Map<String, Glob> cache = new LinkedHashMap<String, Glob>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Glob> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String base;
+    private final PathMatcher matcher;
+    // "**/x" should also match x directly inside the base, which the PathMatcher does not do
+    private final PathMatcher topLevelMatcher;
+    private final int depth;
+
+    private Glob(String pattern) {
+        String[] segments = pattern.split("[/\\\\]", -1);
+        int first = 0;
+        while (first < segments.length && !isPattern(segments[first]))
+            ++first;
+
+        if (first == 0)
+            base = "";
+        else if (first == 1 && segments[0].isEmpty())
+            base = "/";
+        else
+            base = String.join("/", Arrays.copyOfRange(segments, 0, first));
+
+        String rest = String.join("/", Arrays.copyOfRange(segments, first, segments.length));
+        FileSystem fs = FileSystems.getDefault();
+        matcher = fs.getPathMatcher("glob:" + rest);
+        topLevelMatcher = rest.startsWith("**/") ? fs.getPathMatcher("glob:" + rest.substring(3)) : null;
+        depth = rest.contains("**") ? Integer.MAX_VALUE : segments.length - first;
+    }
+
+    // Returns the compiled form of pattern, compiling it only if it is not cached already.
+    // Throws IllegalArgumentException if the pattern is malformed, such as an unclosed '['.
+    public static Glob compile(String pattern) {
+        synchronized (cache) {
+            Glob glob = cache.get(pattern);
+            if (glob == null) {
+                glob = new Glob(pattern);
+                cache.put(pattern, glob);
+            }
+            return glob;
+        }
+    }
+
+    public static boolean isPattern(String path) {
+        for (int i = 0; i < path.length(); ++i)
+            if (WILDCARD_CHARS.indexOf(path.charAt(i)) != -1)
+                return true;
+        return false;
+    }
+
+    public static boolean isValid(String pattern) {
+        try {
+            compile(pattern);
+            return true;
+        } catch (IllegalArgumentException ignored) {
+            return false;
+        }
+    }
+
+    // The leading part of the pattern that has no wildcards, "" if the pattern starts with one
+    public String getBase() {
+        return base;
+    }
+
+    // Returns every path under root (the base directory, resolved) that matches, in sorted order
+    public List<Path> expand(Path root) throws IOException {
+        List<Path> res = new ArrayList<>();
+        if (depth == 1) {
+            //the common case of a single level, no need to walk
+            for (DirectoryCache.Entry entry : DirectoryCache.list(root)) {
+                Path name = Paths.get(entry.getName());
+                if (matches(name))
+                    res.add(root.resolve(name));
+            }
+        } else {
+            Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root) && matches(root.relativize(dir)))
+                        res.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (matches(root.relativize(file)))
+                        res.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        Collections.sort(res);
+        return res;
+    }
+
+    private boolean matches(Path relative) {
+        return matcher.matches(relative) || (topLevelMatcher != null && topLevelMatcher.matches(relative));
+    }
+}
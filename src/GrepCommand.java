@@ -0,0 +1,290 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.PatternSyntaxException;
+
+public class GrepCommand implements Command {
+    // Files are mapped a window at a time, cut at the last line that fits
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    // Mapping costs more than reading for files smaller than this
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    private static final int STDIN_BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return "grep";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-r] [-c] [-n] [-i] [-F] arg1: pattern arg2.n: files\nDisplays the lines of the files, or of the piped input if none are given, that match the regular expression pattern. -F takes pattern as a fixed string, -i ignores case, -n shows line numbers, -c only counts the lines, -r searches directories with everything below them.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-r", "-c", "-n", "-i", "-F");
+    }
+
+    @Override
+    public int literalArguments() {
+        return 1;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        String[] args = parser.getArguments();
+        if (args.length == 0)
+            throw new ParsingException("grep: no pattern given.");
+        if (args.length == 1 && !piped)
+            throw new ParsingException("grep: no files given.");
+        try {
+            new LineSearch(args[0], parser.hasOption("-F"), parser.hasOption("-i"));
+        } catch (PatternSyntaxException ex) {
+            throw new ParsingException(String.format("grep: invalid pattern %s.", args[0]));
+        }
+    }
+
+    // One file, or the piped input, is searched as it is read.
+    // Several files are searched at the same time on the common fork-join pool, at most twice as many as it has threads,
+    // and the results of each are printed in the order of the arguments as soon as the ones before it are done.
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        LineSearch search = new LineSearch(args[0], parser.hasOption("-F"), parser.hasOption("-i"));
+        boolean count = parser.hasOption("-c"), numbered = parser.hasOption("-n");
+        if (args.length == 1) {
+            Output output = new Output(stdout, null, count, numbered);
+            try {
+                searchStream(search, stdin, output);
+            } catch (IOException ex) {
+                throw new TerminalException("grep: cannot read piped input: IO error");
+            }
+            output.finish();
+            Metrics.written(output.written);
+            return;
+        }
+
+        List<String> errors = new ArrayList<>();
+        List<Path> files = files(Arrays.copyOfRange(args, 1, args.length), parser.hasOption("-r"), errors);
+        Session session = terminal.getSession();
+        //names are shown as given, relative to the working directory, and only if there is more than one file
+        boolean named = files.size() > 1 || parser.hasOption("-r");
+        if (files.size() == 1) {
+            Path file = files.get(0);
+            Output output = new Output(stdout, named ? session.relativize(file) : null, count, numbered);
+            try {
+                Metrics.read(searchFile(search, file, output));
+                Metrics.touched(1);
+                output.finish();
+                Metrics.written(output.written);
+            } catch (IOException ex) {
+                errors.add(String.format("grep: %s: IO error.", file.getFileName()));
+            }
+        } else {
+            //only a window of files is searched ahead of the one being printed, so buffered results stay bounded
+            int window = 2 * ForkJoinPool.commonPool().getParallelism();
+            Deque<ForkJoinTask<Result>> tasks = new ArrayDeque<>();
+            int next = 0;
+            while (next < files.size() || !tasks.isEmpty()) {
+                while (next < files.size() && tasks.size() < window) {
+                    Path file = files.get(next++);
+                    String name = session.relativize(file);
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> searchFile(search, file, name, count, numbered)));
+                }
+                Result result = tasks.poll().join();
+                if (stdout.checkError()) {
+                    //nobody reads what is left, so the files still waiting are never searched
+                    for (ForkJoinTask<Result> task : tasks)
+                        task.cancel(true);
+                    break;
+                }
+                stdout.write(result.output, 0, result.output.length);
+                Metrics.written(result.output.length);
+                Metrics.read(result.bytes);
+                Metrics.touched(1);
+                if (result.error != null)
+                    errors.add(result.error);
+            }
+        }
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+    }
+
+    // The files named by args, with everything below the directories among them if recursive
+    private static List<Path> files(String[] args, boolean recursive, List<String> errors) {
+        List<Path> ret = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isRegularFile(path)) {
+                ret.add(path);
+            } else if (Files.isDirectory(path) && recursive) {
+                int from = ret.size();
+                try {
+                    Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            if (attrs.isRegularFile())
+                                ret.add(file);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                            errors.add(String.format("grep: %s: IO error.", file.getFileName()));
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+                } catch (IOException ex) {
+                    errors.add(String.format("grep: %s: IO error.", path.getFileName()));
+                }
+                //in a stable order, whatever order the directories are read in
+                Collections.sort(ret.subList(from, ret.size()));
+            } else if (Files.isDirectory(path)) {
+                errors.add(String.format("grep: %s: Is a directory.", path.getFileName()));
+            } else {
+                errors.add(String.format("grep: %s: No such file or directory.", path.getFileName()));
+            }
+        }
+        return ret;
+    }
+
+    private static final class Result {
+        private final byte[] output;
+        private final long bytes;
+        private final String error;
+
+        Result(byte[] output, long bytes, String error) {
+            this.output = output;
+            this.bytes = bytes;
+            this.error = error;
+        }
+    }
+
+    // Searches file into a buffer of its own, for the parallel search
+    private static Result searchFile(LineSearch search, Path file, String name, boolean count, boolean numbered) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Output output = new Output(new PrintStream(buffer), name, count, numbered);
+        try {
+            long bytes = searchFile(search, file, output);
+            output.finish();
+            return new Result(buffer.toByteArray(), bytes, null);
+        } catch (IOException ex) {
+            return new Result(buffer.toByteArray(), 0, String.format("grep: %s: IO error.", file.getFileName()));
+        }
+    }
+
+    // Returns the number of bytes searched
+    private static long searchFile(LineSearch search, Path file, Output output) throws IOException {
+        LineSearch.Search state = search.newSearch(output.numbered);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD) {
+                ByteBuffer data = ByteBuffer.allocate((int) size);
+                while (data.hasRemaining() && channel.read(data) != -1) {
+                }
+                data.flip();
+                state.lines(data, output);
+                return data.limit();
+            }
+            long position = 0;
+            while (position < size && !output.stdout.checkError()) {
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+                int limit = window.limit();
+                if (position + limit < size) {
+                    int cut = limit;
+                    while (cut > 0 && window.get(cut - 1) != '\n')
+                        --cut;
+                    //a line longer than a whole window is cut where the window ends
+                    if (cut > 0)
+                        limit = cut;
+                    window.limit(limit);
+                }
+                state.lines(window, output);
+                position += limit;
+            }
+            return position;
+        }
+    }
+
+    // Searches the piped input as it comes, a buffer of complete lines at a time
+    private static void searchStream(LineSearch search, InputStream stdin, Output output) throws IOException {
+        LineSearch.Search state = search.newSearch(output.numbered);
+        byte[] buffer = new byte[STDIN_BUFFER_SIZE];
+        int filled = 0, read;
+        while ((read = stdin.read(buffer, filled, buffer.length - filled)) != -1 && !output.stdout.checkError()) {
+            filled += read;
+            Metrics.read(read);
+            int end = filled;
+            while (end > 0 && buffer[end - 1] != '\n')
+                --end;
+            if (end == 0) {
+                //no line has ended yet, make room for a longer one
+                if (filled == buffer.length)
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                continue;
+            }
+            state.lines(ByteBuffer.wrap(buffer, 0, end), output);
+            System.arraycopy(buffer, end, buffer, 0, filled - end);
+            filled -= end;
+        }
+        if (filled > 0)
+            state.lines(ByteBuffer.wrap(buffer, 0, filled), output);
+    }
+
+    // Prints matching lines as "name:number:line", leaving out what was not asked for, or only counts them.
+    // It may run on a pool thread, so the bytes printed are kept in written for the caller to count.
+    private static final class Output implements LineSearch.LineHandler {
+        private final PrintStream stdout;
+        private final byte[] prefix;
+        private final boolean count;
+        private final boolean numbered;
+        private byte[] line = new byte[256];
+        private long matches = 0;
+        private long written = 0;
+
+        Output(PrintStream stdout, String name, boolean count, boolean numbered) {
+            this.stdout = stdout;
+            this.prefix = name == null ? new byte[0] : (name + ":").getBytes(StandardCharsets.UTF_8);
+            this.count = count;
+            this.numbered = numbered && !count;
+        }
+
+        @Override
+        public void accept(ByteBuffer data, int start, int end, long number) {
+            ++matches;
+            if (count)
+                return;
+            stdout.write(prefix, 0, prefix.length);
+            if (numbered) {
+                String numberText = number + ":";
+                stdout.print(numberText);
+                written += numberText.length();
+            }
+            int length = end - start;
+            if (line.length < length)
+                line = new byte[Math.max(length, line.length * 2)];
+            ByteBuffer source = data.duplicate();
+            source.limit(end).position(start);
+            source.get(line, 0, length);
+            stdout.write(line, 0, length);
+            stdout.write('\n');
+            written += prefix.length + length + 1;
+        }
+
+        void finish() {
+            if (count) {
+                String countText = matches + "\n";
+                stdout.write(prefix, 0, prefix.length);
+                stdout.print(countText);
+                written += prefix.length + countText.length();
+            }
+            stdout.flush();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+public class HeadCommand implements Command {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return "head";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-n lines] [arg1.n: files]\nDisplays the first 10 lines, or as many as -n gives, of each file, or of the piped input if no files are given.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Collections.singletonList("-n");
+    }
+
+    @Override
+    public List<String> getValueOptions() {
+        return getOptions();
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        checkFilter(parser, piped);
+        checkLines(parser);
+    }
+
+    // head, tail, wc and sort read their files, or the piped input if they are given none
+    static void checkFilter(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length == 0 && !piped)
+            throw new ParsingException(String.format("%s: no files given.", parser.getCmd()));
+    }
+
+    // head and tail take the number of lines with -n
+    static void checkLines(Parser parser) throws ParsingException {
+        if (parser.hasOption("-n")) {
+            try {
+                if (Long.parseLong(parser.getOption("-n")) >= 0)
+                    return;
+            } catch (NumberFormatException ignored) {
+            }
+            throw new ParsingException(String.format("%s: invalid number of lines %s.", parser.getCmd(), parser.getOption("-n")));
+        }
+    }
+
+    // The number of lines given by -n, 10 by default
+    static long lines(Parser parser) {
+        return parser.hasOption("-n") ? Long.parseLong(parser.getOption("-n")) : 10;
+    }
+
+    // Prints a "==> name <==" header before each file when there are several, as head and tail do
+    static void header(PrintStream stdout, Session session, String[] args, int index) {
+        if (args.length < 2)
+            return;
+        if (index > 0)
+            stdout.println();
+        Terminal.print(stdout, "==> " + session.relativize(Paths.get(args[index])) + " <==");
+    }
+
+    // Only as much of the input is read as the lines printed need
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        long lines = lines(parser);
+        if (args.length == 0) {
+            try {
+                head(stdin, lines, stdout);
+            } catch (IOException ex) {
+                throw new TerminalException("head: cannot read piped input: IO error");
+            }
+            return;
+        }
+        for (int i = 0; i < args.length && !stdout.checkError(); ++i) {
+            Path path = Paths.get(args[i]);
+            if (Files.isDirectory(path))
+                throw new TerminalException(String.format("head: %s is a directory.", path.getFileName()));
+            header(stdout, terminal.getSession(), args, i);
+            try (InputStream in = Files.newInputStream(path)) {
+                head(in, lines, stdout);
+                Metrics.touched(1);
+            } catch (NoSuchFileException ex) {
+                throw new TerminalException(String.format("head: %s no such file or directory.", path.getFileName()));
+            } catch (IOException ex) {
+                throw new TerminalException(String.format("head: %s IO error.", path.getFileName()));
+            }
+        }
+    }
+
+    private static void head(InputStream in, long lines, PrintStream stdout) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long count = 0;
+        int read;
+        while (count < lines && (read = in.read(buffer)) != -1 && !stdout.checkError()) {
+            Metrics.read(read);
+            int end = read;
+            for (int i = 0; i < read; ++i) {
+                if (buffer[i] == '\n' && ++count == lines) {
+                    end = i + 1;
+                    break;
+                }
+            }
+            stdout.write(buffer, 0, end);
+            Metrics.written(end);
+        }
+        stdout.flush();
+    }
+}
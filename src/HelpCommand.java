@@ -0,0 +1,49 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class HelpCommand implements Command {
+    @Override
+    public String getName() {
+        return "help";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[arg1: argument]\nDisplays info about arg1, if omitted displays info about all commands.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        checkCommandArgument(parser);
+    }
+
+    // help and args take at most one argument, which names a command
+    static void checkCommandArgument(Parser parser) throws ParsingException {
+        String[] args = parser.getArguments();
+        if (args.length > 1)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+        if (args.length != 0 && Commands.get(args[0]) == null)
+            throw new ParsingException(String.format("%s: %s: unsupported command.", parser.getCmd(), args[0]));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) {
+        String[] args = parser.getArguments();
+        if (args.length != 0) {
+            Terminal.print(stdout, Commands.get(args[0]).getHelp());
+            return;
+        }
+        StringBuilder ret = new StringBuilder();
+        for (Command command : Commands.all()) {
+            if (ret.length() > 0)
+                ret.append("\n\n");
+            ret.append(command.getName()).append(" -> ").append(command.getHelp());
+        }
+        Terminal.print(stdout, ret.toString());
+    }
+}
@@ -0,0 +1,425 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The lines typed at the prompt, kept across sessions in a file with one line per entry.
+// Entries are numbered from 1, as history lists them, and only the last MAX_ENTRIES are kept; older ones are evicted.
+// New entries are appended to the file in batches rather than one write each: once BATCH are waiting,
+// when an entry is added after the oldest waiting one has waited FLUSH_MILLIS, and on close.
+// Nothing is read until the history is first used, and then only the end of the file, the entries that are kept,
+// so a file of millions of lines does not slow the start of the shell. The file is rewritten with only those entries
+// once it has grown to more than twice their size. Appending and rewriting both hold a lock on a file next to it,
+// so a shell rewriting the file never drops the lines another one appends meanwhile.
+// Reverse search goes through an index of the trigrams of the entries, so only the entries that have every trigram
+// of the query are looked at. The index is built on a thread of its own once the file is read, and searches go
+// through every entry until it is done.
+class History implements Closeable {
+    static final int MAX_ENTRIES = 100_000;
+    private static final int BATCH = 64;
+    private static final long FLUSH_MILLIS = 2000;
+    private static final int GRAM = 3;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // The numbers of the entries that have a trigram, in increasing order
+    private static final class Postings {
+        private int[] numbers = new int[4];
+        private int size = 0;
+
+        void add(int number) {
+            //an entry with the trigram more than once is listed once
+            if (size > 0 && numbers[size - 1] == number)
+                return;
+            if (size == numbers.length)
+                numbers = Arrays.copyOf(numbers, size * 2);
+            numbers[size++] = number;
+        }
+
+        // The index of the last number below before, or -1
+        int lastBelow(int before) {
+            int low = 0, high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (numbers[middle] < before)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low - 1;
+        }
+    }
+
+    // The postings of every trigram, in an open addressing table on the packed trigram so that nothing is boxed
+    private static final class Index {
+        private long[] grams = new long[1 << 12];
+        private Postings[] postings = new Postings[1 << 12];
+        private int size = 0;
+
+        Postings get(long gram) {
+            int mask = grams.length - 1;
+            for (int i = slot(gram, mask); postings[i] != null; i = (i + 1) & mask)
+                if (grams[i] == gram)
+                    return postings[i];
+            return null;
+        }
+
+        void add(long gram, int number) {
+            int mask = grams.length - 1;
+            int i = slot(gram, mask);
+            while (postings[i] != null && grams[i] != gram)
+                i = (i + 1) & mask;
+            if (postings[i] == null) {
+                grams[i] = gram;
+                postings[i] = new Postings();
+                ++size;
+            }
+            postings[i].add(number);
+            if (size * 2 > grams.length)
+                grow();
+        }
+
+        private void grow() {
+            long[] oldGrams = grams;
+            Postings[] oldPostings = postings;
+            grams = new long[oldGrams.length * 2];
+            postings = new Postings[oldGrams.length * 2];
+            int mask = grams.length - 1;
+            for (int j = 0; j < oldGrams.length; ++j) {
+                if (oldPostings[j] == null)
+                    continue;
+                int i = slot(oldGrams[j], mask);
+                while (postings[i] != null)
+                    i = (i + 1) & mask;
+                grams[i] = oldGrams[j];
+                postings[i] = oldPostings[j];
+            }
+        }
+
+        private static int slot(long gram, int mask) {
+            return (int) ((gram * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+
+    // Shells in one JVM share this, since a file lock is held by the whole JVM
+    private static final Object FILE_LOCK = new Object();
+
+    private final Path file;
+    private final Path lockFile;
+    // How long the file was when the session started; anything after it was written since, by this shell or another
+    private final long startLength;
+    private final String[] entries = new String[MAX_ENTRIES];
+    // The numbers of the oldest entry kept and of the next one to be added
+    private int first = 1, next = 1;
+    private boolean loaded = false;
+    // Lines added before the file was read, which go after those read from it
+    private final List<String> early = new ArrayList<>();
+    private final List<String> pending = new ArrayList<>();
+    private long pendingSince;
+
+    private Index index;
+    // The oldest entry the index has; once it is far behind first, most of the index is evicted entries
+    private int indexFirst;
+    private boolean indexing = false;
+
+    public History(Path file) {
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        long length;
+        try {
+            length = Files.size(file);
+        } catch (IOException ex) {
+            length = 0;
+        }
+        this.startLength = length;
+    }
+
+    // The history of the user, in ~/.dabsh_history or the file given by -Ddabsh.history
+    static Path defaultFile() {
+        String path = System.getProperty("dabsh.history");
+        return path != null ? Paths.get(path) : Paths.get(System.getProperty("user.home"), ".dabsh_history");
+    }
+
+    // Adds line as the newest entry, unless it is blank or the same as the newest one
+    public synchronized void add(String line) {
+        if (line.trim().isEmpty())
+            return;
+        if (!loaded) {
+            if (!early.isEmpty() && early.get(early.size() - 1).equals(line))
+                return;
+            early.add(line);
+        } else if (next > first && get(next - 1).equals(line)) {
+            return;
+        } else {
+            append(line);
+        }
+        if (pending.isEmpty())
+            pendingSince = System.currentTimeMillis();
+        pending.add(line);
+        if (pending.size() >= BATCH || System.currentTimeMillis() - pendingSince >= FLUSH_MILLIS)
+            flush();
+    }
+
+    // The number of the oldest entry kept
+    public synchronized int first() {
+        load();
+        return first;
+    }
+
+    // The number of the newest entry, or first() - 1 if there are none
+    public synchronized int last() {
+        load();
+        return next - 1;
+    }
+
+    // The entry numbered number, which must be between first() and last()
+    public synchronized String get(int number) {
+        load();
+        return entries[number % MAX_ENTRIES];
+    }
+
+    // The number of the newest entry before the one numbered before that contains query, or -1 if there is none
+    public synchronized int search(String query, int before) {
+        load();
+        before = Math.min(before, next);
+        if (index != null && first - indexFirst > MAX_ENTRIES && !indexing)
+            startIndexing();
+        if (query.length() < GRAM || index == null) {
+            for (int number = before - 1; number >= first; --number)
+                if (get(number).contains(query))
+                    return number;
+            return -1;
+        }
+        //every entry that contains the query has all its trigrams, so the rarest of them is enough to go through
+        Postings rarest = null;
+        for (int i = 0; i + GRAM <= query.length(); ++i) {
+            Postings postings = index.get(gram(query, i));
+            if (postings == null)
+                return -1;
+            if (rarest == null || postings.size < rarest.size)
+                rarest = postings;
+        }
+        for (int i = rarest.lastBelow(before); i >= 0 && rarest.numbers[i] >= first; --i)
+            if (get(rarest.numbers[i]).contains(query))
+                return rarest.numbers[i];
+        return -1;
+    }
+
+    // The entry numbered designator "n", "-n" counting back from the newest, or "!" for the newest,
+    // or else the newest entry that starts with designator. Returns null if there is no such entry.
+    public synchronized String find(String designator) {
+        load();
+        if (designator.equals("!"))
+            return next > first ? get(next - 1) : null;
+        try {
+            int number = Integer.parseInt(designator);
+            if (number < 0)
+                number += next;
+            return number >= first && number < next ? get(number) : null;
+        } catch (NumberFormatException ex) {
+            for (int number = next - 1; number >= first; --number)
+                if (get(number).startsWith(designator))
+                    return get(number);
+            return null;
+        }
+    }
+
+    // Whether searches go through the index yet
+    synchronized boolean isIndexed() {
+        load();
+        return index != null;
+    }
+
+    // Replaces an event designator at the start of line, as in "!!", "!42", "!-2" or "!grep", with the entry it names,
+    // keeping the rest of the line, as in "!! | more". Lines that do not start with one are returned as they are.
+    public String expand(String line) throws ParsingException {
+        String trimmed = line.trim();
+        if (trimmed.length() < 2 || trimmed.charAt(0) != '!' || Character.isWhitespace(trimmed.charAt(1)))
+            return line;
+        int end = trimmed.charAt(1) == '!' ? 2 : 1;
+        while (end < trimmed.length() && "|&> \t".indexOf(trimmed.charAt(end)) == -1)
+            ++end;
+        String designator = trimmed.substring(1, end);
+        String entry = find(designator);
+        if (entry == null)
+            throw new ParsingException(String.format("dabsh: !%s: event not found.", designator));
+        return entry + trimmed.substring(end);
+    }
+
+    // Writes the entries added since the last write to the end of the file
+    public synchronized void flush() {
+        if (pending.isEmpty())
+            return;
+        StringBuilder text = new StringBuilder();
+        for (String line : pending)
+            text.append(line).append('\n');
+        pending.clear();
+        synchronized (FILE_LOCK) {
+            try (FileChannel lock = lock()) {
+                Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException ignored) {
+                //the history is only lost, the shell goes on
+            }
+        }
+    }
+
+    // Opens the lock file and waits until this shell holds it; closing the channel releases it
+    private FileChannel lock() throws IOException {
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.lock();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void append(String line) {
+        entries[next % MAX_ENTRIES] = line;
+        if (index != null)
+            index(index, next, line);
+        //the slot of the oldest entry was just taken by the new one
+        if (++next - first > MAX_ENTRIES)
+            ++first;
+    }
+
+    // Reads the entries kept from the end of the file as it was when the session started
+    private void load() {
+        if (loaded)
+            return;
+        loaded = true;
+        long start = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            start = startOfKept(channel);
+            ByteBuffer text = ByteBuffer.allocate((int) (startLength - start));
+            while (text.hasRemaining() && channel.read(text, start + text.position()) > 0) {
+            }
+            text.flip();
+            int lineStart = 0;
+            for (int i = 0; i < text.limit(); ++i) {
+                if (text.get(i) == '\n') {
+                    add(text, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            add(text, lineStart, text.limit());
+        } catch (NoSuchFileException ex) {
+            //no history yet
+        } catch (IOException ex) {
+            //start over without what could not be read
+        }
+        for (String line : early)
+            if (next == first || !get(next - 1).equals(line))
+                append(line);
+        early.clear();
+        if (start > startLength / 2)
+            compact(start);
+        if (next == first)
+            index = new Index();
+        else
+            startIndexing();
+    }
+
+    private void add(ByteBuffer text, int from, int to) {
+        if (to == from)
+            return;
+        String line = new String(text.array(), from, to - from, StandardCharsets.UTF_8);
+        //another shell may have written the same line right after this one
+        if (next == first || !get(next - 1).equals(line))
+            append(line);
+    }
+
+    // Where the last MAX_ENTRIES lines before startLength begin, found going back from the end a chunk at a time
+    private long startOfKept(FileChannel channel) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        long end = startLength;
+        int lines = 0;
+        //a last line without its '\n' is an entry too
+        if (end > 0) {
+            chunk.limit(1);
+            channel.read(chunk, end - 1);
+            if (chunk.get(0) != '\n')
+                ++lines;
+        }
+        while (end > 0) {
+            chunk.clear();
+            int length = (int) Math.min(CHUNK_SIZE, end);
+            chunk.limit(length);
+            long chunkStart = end - length;
+            while (chunk.hasRemaining() && channel.read(chunk, chunkStart + chunk.position()) > 0) {
+            }
+            for (int i = length - 1; i >= 0; --i) {
+                if (chunk.get(i) == '\n' && ++lines > MAX_ENTRIES)
+                    return chunkStart + i + 1;
+            }
+            end = chunkStart;
+        }
+        return 0;
+    }
+
+    // Drops the lines before start from the file, keeping whatever was appended since the session started.
+    // The lock is held from reading the size until the new file is in place, so no shell appends in between;
+    // without it, the file is left as it is.
+    private void compact(long start) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        synchronized (FILE_LOCK) {
+            try (FileChannel lock = lock()) {
+                try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long size = in.size();
+                    for (long position = start; position < size; )
+                        position += in.transferTo(position, size - position, out);
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // Indexes the entries there are now on a thread of its own, then the ones added meanwhile, and starts using the index
+    private void startIndexing() {
+        indexing = true;
+        int from = first, to = next;
+        String[] lines = new String[to - from];
+        for (int number = from; number < to; ++number)
+            lines[number - from] = get(number);
+        Thread t = new Thread(() -> {
+            Index built = new Index();
+            for (int number = from; number < to; ++number)
+                index(built, number, lines[number - from]);
+            synchronized (this) {
+                for (int number = Math.max(to, first); number < next; ++number)
+                    index(built, number, get(number));
+                index = built;
+                indexFirst = from;
+                indexing = false;
+            }
+        }, "history-index");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void index(Index index, int number, String line) {
+        for (int i = 0; i + GRAM <= line.length(); ++i)
+            index.add(gram(line, i), number);
+    }
+
+    // The three characters of text at i, packed in a long
+    private static long gram(String text, int i) {
+        return (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+    }
+}
@@ -0,0 +1,53 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class HistoryCommand implements Command {
+    @Override
+    public String getName() {
+        return "history";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[count]\nLists the lines typed at the prompt, numbered, or only the last count of them. They are kept across sessions in ~/.dabsh_history.\n"
+                + "A line starting with !n runs line n again, !-n the nth line back, !! the last one and !text the last one starting with text.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        String[] args = parser.getArguments();
+        if (args.length > 1)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+        if (args.length == 1) {
+            try {
+                if (Integer.parseInt(args[0]) >= 0)
+                    return;
+            } catch (NumberFormatException ignored) {
+            }
+            throw new ParsingException(String.format("%s: invalid count %s.", parser.getCmd(), args[0]));
+        }
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) {
+        History history = terminal.getHistory();
+        if (history == null)
+            return;
+        String[] args = parser.getArguments();
+        int last = history.last(), from = history.first();
+        if (args.length == 1)
+            from = Math.max(from, last + 1 - Integer.parseInt(args[0]));
+        for (int number = from; number <= last; ++number)
+            Terminal.print(stdout, String.format("%5d  %s", number, history.get(number)));
+    }
+}
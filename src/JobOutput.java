@@ -0,0 +1,83 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// What a background job prints, kept aside until it is shown.
+// Up to MEMORY_LIMIT bytes are kept in memory; past that everything goes to a temporary file instead,
+// so a job printing a huge file does not fill the heap.
+// While attached to a stream, such as the console when the job is brought to the foreground,
+// what was kept is written there first, and everything printed after goes straight to it.
+class JobOutput extends OutputStream {
+    private static final int MEMORY_LIMIT = 1024 * 1024;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path spill;
+    private OutputStream spillOut;
+    private OutputStream attached;
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (attached != null) {
+            attached.write(b, off, len);
+            return;
+        }
+        if (spillOut == null && memory.size() + len > MEMORY_LIMIT) {
+            spill = Files.createTempFile("dabsh-job", ".out");
+            spill.toFile().deleteOnExit();
+            spillOut = new BufferedOutputStream(Files.newOutputStream(spill));
+            memory.writeTo(spillOut);
+            memory = new ByteArrayOutputStream();
+        }
+        if (spillOut != null)
+            spillOut.write(b, off, len);
+        else
+            memory.write(b, off, len);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (attached != null)
+            attached.flush();
+    }
+
+    // Writes everything kept to out, and forgets it
+    public synchronized void drainTo(OutputStream out) throws IOException {
+        if (spill != null) {
+            spillOut.close();
+            Files.copy(spill, out);
+            Files.delete(spill);
+            spill = null;
+            spillOut = null;
+        }
+        memory.writeTo(out);
+        memory.reset();
+        out.flush();
+    }
+
+    // Shows what was kept on out, then sends everything printed from now on straight to it, until detached
+    public synchronized void attach(OutputStream out) throws IOException {
+        drainTo(out);
+        attached = out;
+    }
+
+    public synchronized void detach() {
+        attached = null;
+    }
+
+    // Drops whatever is kept, removing the temporary file if there is one
+    @Override
+    public synchronized void close() throws IOException {
+        if (spill != null) {
+            spillOut.close();
+            Files.deleteIfExists(spill);
+            spill = null;
+            spillOut = null;
+        }
+        memory = new ByteArrayOutputStream();
+    }
+}
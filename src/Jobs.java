@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+
+// The background jobs of a session, started by ending a command line with '&'.
+// Every job runs on a daemon thread of its own, from a cached pool, and keeps what it prints in a JobOutput
+// of its own, which is shown once the job is reported done, or as it comes while the job is brought back with fg.
+// A job that runs until it is killed, such as tail -f, prints straight to the session's console instead,
+// since nothing would ever show what it kept.
+// Paths are made absolute when the line is parsed, so a job keeps working in the directory it started in
+// even after the shell moves elsewhere.
+class Jobs {
+    enum State {
+        Running, Done, Failed, Killed
+    }
+
+    static final class Job {
+        private final int id;
+        private final String line;
+        private final String workingDir;
+        private final boolean endless;
+        private final long start = System.nanoTime();
+        private final JobOutput buffer = new JobOutput();
+        private final PrintStream output = new PrintStream(buffer, true);
+        private Future<?> future;
+        private volatile State state = State.Running;
+        private volatile String error;
+        private volatile long end;
+
+        Job(int id, String line, String workingDir, boolean endless) {
+            this.id = id;
+            this.line = line;
+            this.workingDir = workingDir;
+            this.endless = endless;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        // Whether the job only ends when it is killed
+        public boolean isEndless() {
+            return endless;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        // The message of what made the job fail, null unless it failed
+        public String getError() {
+            return error;
+        }
+
+        // Writes what the job has printed and not been shown yet to out
+        public void printOutput(OutputStream out) {
+            try {
+                buffer.drainTo(out);
+            } catch (IOException ex) {
+                //what was kept is lost, the job goes on
+            }
+        }
+
+        // Shows what the job has printed so far on out, and what it prints from now on as it comes, until detached
+        public void attach(OutputStream out) {
+            try {
+                buffer.attach(out);
+            } catch (IOException ex) {
+                //what was kept is lost, the rest still comes through
+            }
+        }
+
+        public void detach() {
+            buffer.detach();
+        }
+
+        private double seconds() {
+            return ((state == State.Running ? System.nanoTime() : end) - start) / 1e9;
+        }
+
+        private void run(Pipeline pipeline) {
+            try {
+                pipeline.run(output);
+                finish(State.Done, null);
+            } catch (Exception ex) {
+                finish(State.Failed, ex.getMessage());
+            } finally {
+                output.flush();
+            }
+        }
+
+        // The first way a job ends is the one it keeps, so a job killed while failing stays killed
+        private synchronized void finish(State how, String message) {
+            if (state != State.Running)
+                return;
+            error = message;
+            end = System.nanoTime();
+            state = how;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d] %-8s %8.2f s  %s (wd: %s)", id, state, seconds(), line, workingDir);
+        }
+    }
+
+    private static final long KEYBOARD_POLL_MILLIS = 50;
+
+    private final Session session;
+    private final TreeMap<Integer, Job> jobs = new TreeMap<>();
+    private final ExecutorService pool = Executors.newCachedThreadPool(task -> {
+        Thread t = new Thread(task, "job");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public Jobs(Session session) {
+        this.session = session;
+    }
+
+    // Runs pipeline in the background, and returns its job.
+    // line is the command line it came from, as shown by the jobs command.
+    public synchronized Job start(Pipeline pipeline, String line) {
+        //numbers start over from 1 once no jobs are left, as in bash
+        int id = jobs.isEmpty() ? 1 : jobs.lastKey() + 1;
+        Job job = new Job(id, line, session.getWorkingDir(), pipeline.isEndless());
+        jobs.put(id, job);
+        if (job.endless)
+            job.attach(session.getOut());
+        job.future = pool.submit(() -> job.run(pipeline));
+        return job;
+    }
+
+    // Finds a job by its number, as in "2" or "%2", or the latest job if id is null
+    public synchronized Job get(String id) throws TerminalException {
+        if (id == null) {
+            if (jobs.isEmpty())
+                throw new TerminalException("dabsh: no current job.");
+            return jobs.lastEntry().getValue();
+        }
+        Job job = null;
+        try {
+            job = jobs.get(Integer.parseInt(id.startsWith("%") ? id.substring(1) : id));
+        } catch (NumberFormatException ignored) {
+        }
+        if (job == null)
+            throw new TerminalException(String.format("dabsh: %s: no such job.", id));
+        return job;
+    }
+
+    public synchronized List<Job> list() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    // Blocks until job has finished
+    public void waitFor(Job job) throws TerminalException {
+        waitFor(job, null);
+    }
+
+    // Blocks until job has finished, or, unless keyboard is null, until a line is typed on it, which is read and dropped.
+    // Returns whether the job has finished.
+    public boolean waitFor(Job job, InputStream keyboard) throws TerminalException {
+        try {
+            while (true) {
+                try {
+                    job.future.get(KEYBOARD_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    return true;
+                } catch (TimeoutException ex) {
+                    if (keyboard != null && keyboard.available() > 0) {
+                        int c;
+                        while ((c = keyboard.read()) != -1 && c != '\n') {
+                        }
+                        return false;
+                    }
+                }
+            }
+        } catch (CancellationException | ExecutionException ignored) {
+            //the job has ended either way, and its own state tells how
+            return true;
+        } catch (IOException ex) {
+            //the keyboard is gone, there is nothing left but waiting
+            return waitFor(job, null);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TerminalException("dabsh: interrupted while waiting for a job.");
+        }
+    }
+
+    // Interrupts job, which stops as soon as what it is running notices
+    public void kill(Job job) {
+        job.finish(State.Killed, null);
+        job.future.cancel(true);
+    }
+
+    // Forgets job once it has finished, so its number can be used again, and drops what it kept of its output
+    public synchronized void remove(Job job) {
+        jobs.remove(job.id);
+        try {
+            job.buffer.close();
+        } catch (IOException ignored) {
+            //only a temporary file is left behind, removed on exit
+        }
+    }
+
+    // Prints every job that has finished, with its output, and forgets it.
+    // Returns how many of them failed.
+    public int reportFinished(PrintStream out) {
+        int failed = 0;
+        for (Job job : list()) {
+            if (job.state == State.Running)
+                continue;
+            out.println(job);
+            job.printOutput(out);
+            remove(job);
+            if (job.error != null && !job.error.isEmpty())
+                out.println(job.error);
+            if (job.state == State.Failed)
+                ++failed;
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,36 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class JobsCommand implements Command {
+    @Override
+    public String getName() {
+        return "jobs";
+    }
+
+    @Override
+    public String getHelp() {
+        return "no arguments\nLists the background jobs, started by ending a command with &, with their state, running time and directory.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length > 0)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) {
+        for (Jobs.Job job : terminal.getJobs().list())
+            Terminal.print(stdout, job.toString());
+    }
+}
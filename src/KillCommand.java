@@ -0,0 +1,37 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class KillCommand implements Command {
+    @Override
+    public String getName() {
+        return "kill";
+    }
+
+    @Override
+    public String getHelp() {
+        return "arg1.n: jobs\nStops the given background jobs.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length < 1)
+            throw new ParsingException(String.format("%s: too few arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        Jobs jobs = terminal.getJobs();
+        for (String arg : parser.getArguments())
+            jobs.kill(jobs.get(arg));
+    }
+}
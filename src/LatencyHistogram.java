@@ -0,0 +1,76 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts recorded values in log-linear buckets, in the way HdrHistogram does:
+// values below 128 get a bucket each, and every power of two above that is split into 64 buckets,
+// so any value is known to within about 1.5% while the whole range of a long takes under 4000 buckets.
+// Recording is lock free and can happen from many threads at once.
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * HALF + HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private volatile long max = 0;
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.incrementAndGet(index(value));
+        total.increment();
+        sum.add(value);
+        if (value > max) {
+            synchronized (this) {
+                if (value > max)
+                    max = value;
+            }
+        }
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    // Returns the smallest recorded value that is at least as big as the given percentage of all values
+    public long getPercentile(double percentile) {
+        long count = total.sum();
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    // The largest value that falls in bucket i
+    private static long highestValue(int i) {
+        if (i < SUB_BUCKETS)
+            return i;
+        int shift = i / HALF - 1;
+        long mantissa = i - shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,82 @@
+// Splits a command line into words and operators in a single pass.
+// Quotes are removed from words, and "|", ">" or "&" inside quotes are plain characters.
+// The current token is kept in fields rather than allocated, so only the text of words creates garbage.
+class Lexer {
+    enum TokenType {
+        Word, Pipe, Truncate, Append, Background, End
+    }
+
+    private final String input;
+    private final StringBuilder word = new StringBuilder();
+    private int pos = 0;
+
+    private TokenType type;
+    private String text;
+    private boolean quoted;
+
+    public Lexer(String input) {
+        this.input = input;
+    }
+
+    // Moves to the next token and returns its type
+    public TokenType next() throws ParsingException {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos)))
+            ++pos;
+        text = null;
+        quoted = false;
+        if (pos == input.length())
+            return type = TokenType.End;
+
+        char c = input.charAt(pos);
+        if (c == '|') {
+            ++pos;
+            return type = TokenType.Pipe;
+        }
+        if (c == '>') {
+            if (++pos < input.length() && input.charAt(pos) == '>') {
+                ++pos;
+                return type = TokenType.Append;
+            }
+            return type = TokenType.Truncate;
+        }
+        if (c == '&') {
+            ++pos;
+            return type = TokenType.Background;
+        }
+
+        //a word runs until whitespace or an operator outside of quotes, as in a"b c"d
+        word.setLength(0);
+        while (pos < input.length()) {
+            c = input.charAt(pos);
+            if (c == '"' || c == '\'') {
+                int end = input.indexOf(c, pos + 1);
+                if (end == -1)
+                    throw new ParsingException("dabsh: unterminated quotation.");
+                word.append(input, pos + 1, end);
+                quoted = true;
+                pos = end + 1;
+            } else if (Character.isWhitespace(c) || c == '|' || c == '>' || c == '&') {
+                break;
+            } else {
+                word.append(c);
+                ++pos;
+            }
+        }
+        text = word.toString();
+        return type = TokenType.Word;
+    }
+
+    public TokenType getType() {
+        return type;
+    }
+
+    // The text of the current word, without its quotes
+    public String getText() {
+        return text;
+    }
+
+    // True if any part of the current word was quoted, which keeps it from being treated as a wildcard
+    public boolean isQuoted() {
+        return quoted;
+    }
+}
@@ -0,0 +1,339 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Reads the command lines typed at the prompt, with editing and tab completion.
+// The terminal is put in raw mode with stty only while a line is being typed, and restored before it runs,
+// so commands that read the console, such as more, get it as usual.
+// Where there is no terminal to put in raw mode, as when input is piped in, lines are read as they are.
+//
+// Keys: Left/Right, Home/End (or Ctrl-A/Ctrl-E) move; Backspace and Delete erase; Ctrl-U erases the whole line;
+// Tab completes the command name or the path being typed, and lists the choices if there are several;
+// Up/Down go through the history, and Ctrl-R searches back in it for the text typed after it, Ctrl-R again
+// for the match before, until Enter runs the match, Ctrl-G gives up, or another key takes the match to edit it;
+// Ctrl-D on an empty line ends the input.
+class LineEditor {
+    private static final int CTRL_A = 1, CTRL_D = 4, CTRL_E = 5, CTRL_G = 7, CTRL_R = 18, CTRL_U = 21, TAB = 9, ESC = 27, BACKSPACE = 127;
+    private static final int SCREEN_WIDTH = 80;
+
+    private final Terminal kernel;
+    private final InputStream in;
+    private final PrintStream out;
+    private final Completer completer;
+    private final History history;
+    private final String savedMode;
+
+    private StringBuilder line;
+    private int cursor;
+    // The number of the history entry shown, or 0 while the line being typed is, which draft then keeps
+    private int shown;
+    private String draft;
+    // A key read while searching that ended the search, to be handled as if it were typed after it
+    private int unread = -1;
+
+    public LineEditor(Terminal kernel) {
+        this.kernel = kernel;
+        this.in = kernel.getSession().getIn();
+        this.out = kernel.getConsole();
+        this.completer = new Completer(kernel.getSession());
+        this.history = kernel.getHistory();
+        this.savedMode = System.console() == null ? null : stty("-g");
+        if (savedMode != null)
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> stty(savedMode)));
+    }
+
+    // Prints prompt and returns the line typed after it, or null once the input has ended
+    public String readLine(String prompt) {
+        out.print(prompt);
+        out.flush();
+        if (savedMode == null || stty("-icanon -echo min 1") == null) {
+            try {
+                return kernel.readLine();
+            } catch (NoSuchElementException ex) {
+                return null;
+            }
+        }
+        try {
+            return edit(prompt);
+        } catch (IOException ex) {
+            return null;
+        } finally {
+            stty(savedMode);
+        }
+    }
+
+    private String edit(String prompt) throws IOException {
+        line = new StringBuilder();
+        cursor = 0;
+        shown = 0;
+        while (true) {
+            int c = read();
+            switch (c) {
+                case -1:
+                    return null;
+                case '\r':
+                case '\n':
+                    out.println();
+                    return line.toString();
+                case CTRL_D:
+                    if (line.length() == 0) {
+                        out.println();
+                        return null;
+                    }
+                    break;
+                case CTRL_A:
+                    moveTo(0);
+                    break;
+                case CTRL_E:
+                    moveTo(line.length());
+                    break;
+                case CTRL_U:
+                    moveTo(0);
+                    line.setLength(0);
+                    redraw();
+                    break;
+                case BACKSPACE:
+                case '\b':
+                    if (cursor > 0) {
+                        line.deleteCharAt(--cursor);
+                        out.print('\b');
+                        redraw();
+                    }
+                    break;
+                case TAB:
+                    complete(prompt);
+                    break;
+                case CTRL_R:
+                    if (history != null && search(prompt)) {
+                        out.println();
+                        return line.toString();
+                    }
+                    break;
+                case ESC:
+                    escape();
+                    break;
+                default:
+                    if (c >= ' ')
+                        insert(decode(c));
+            }
+            out.flush();
+        }
+    }
+
+    // Arrow keys and the like come as escape sequences, such as ESC [ D for Left
+    private void escape() throws IOException {
+        int c = in.read();
+        if (c != '[' && c != 'O')
+            return;
+        c = in.read();
+        switch (c) {
+            case 'A':
+                recall(true);
+                break;
+            case 'B':
+                recall(false);
+                break;
+            case 'C':
+                moveTo(Math.min(line.length(), cursor + 1));
+                break;
+            case 'D':
+                moveTo(Math.max(0, cursor - 1));
+                break;
+            case 'H':
+                moveTo(0);
+                break;
+            case 'F':
+                moveTo(line.length());
+                break;
+            case '3':
+                //Delete is ESC [ 3 ~
+                if (in.read() == '~' && cursor < line.length()) {
+                    line.deleteCharAt(cursor);
+                    redraw();
+                }
+                break;
+            default:
+                //the rest of a sequence this editor does not know, such as ESC [ 1 5 ~
+                while (c >= '0' && c <= '9' || c == ';')
+                    c = in.read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c = unread;
+        unread = -1;
+        return c != -1 ? c : in.read();
+    }
+
+    // Shows the entry before or after the one shown; after the newest comes the line that was being typed
+    private void recall(boolean older) {
+        if (history == null)
+            return;
+        int number = shown == 0 ? history.last() + 1 : shown;
+        number += older ? -1 : 1;
+        if (number < history.first() || number > history.last() + 1 || (shown == 0 && !older))
+            return;
+        if (shown == 0)
+            draft = line.toString();
+        shown = number > history.last() ? 0 : number;
+        replace(shown == 0 ? draft : history.get(shown));
+    }
+
+    // Searches back through the history as the query is typed, returning true if Enter was pressed to run the match
+    private boolean search(String prompt) throws IOException {
+        String original = line.toString();
+        StringBuilder query = new StringBuilder();
+        int found = -1;
+        boolean failed = false;
+        while (true) {
+            out.print("\r\u001B[K" + (failed ? "(failed reverse-i-search)`" : "(reverse-i-search)`") + query + "': "
+                    + (found == -1 ? original : history.get(found)));
+            out.flush();
+            int c = in.read();
+            int from = history.last() + 1;
+            if (c == CTRL_R && found != -1) {
+                from = found;
+            } else if (c == BACKSPACE || c == '\b') {
+                if (query.length() > 0)
+                    query.setLength(query.length() - 1);
+            } else if (c >= ' ') {
+                query.append(decode(c));
+                //a longer query can still match the entry found
+                if (found != -1)
+                    from = found + 1;
+            } else if (c != CTRL_R) {
+                //a key that ends the search
+                if (c == CTRL_G || found == -1)
+                    line = new StringBuilder(original);
+                else
+                    line = new StringBuilder(history.get(found));
+                cursor = line.length();
+                out.print("\r\u001B[K" + prompt + line);
+                if (c == '\r' || c == '\n')
+                    return true;
+                if (c != CTRL_G)
+                    unread = c;
+                return false;
+            }
+            if (query.length() == 0) {
+                found = -1;
+                failed = false;
+                continue;
+            }
+            int match = history.search(query.toString(), from);
+            failed = match == -1;
+            if (!failed)
+                found = match;
+        }
+    }
+
+    // Reads the rest of a character that takes more than one byte in UTF-8
+    private String decode(int first) throws IOException {
+        int length = first >= 0xf0 ? 4 : first >= 0xe0 ? 3 : first >= 0xc0 ? 2 : 1;
+        byte[] bytes = new byte[length];
+        bytes[0] = (byte) first;
+        for (int i = 1; i < length; ++i)
+            bytes[i] = (byte) in.read();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void insert(String text) {
+        line.insert(cursor, text);
+        out.print(text);
+        cursor += text.length();
+        redraw();
+    }
+
+    // Shows text instead of the line, with the cursor at its end
+    private void replace(String text) {
+        moveTo(0);
+        line = new StringBuilder(text);
+        cursor = 0;
+        redraw();
+        moveTo(line.length());
+    }
+
+    // Prints the line from the cursor on again, and moves back to the cursor
+    private void redraw() {
+        out.print(line.substring(cursor));
+        out.print("\u001B[K");
+        back(line.length() - cursor);
+    }
+
+    private void moveTo(int position) {
+        if (position < cursor)
+            back(cursor - position);
+        else if (position > cursor)
+            out.print(line.substring(cursor, position));
+        cursor = position;
+    }
+
+    private void back(int columns) {
+        if (columns > 0)
+            out.print("\u001B[" + columns + "D");
+    }
+
+    // Completes the word before the cursor, or lists what it can be completed to
+    private void complete(String prompt) {
+        int start = cursor;
+        while (start > 0 && line.charAt(start - 1) != ' ' && line.charAt(start - 1) != '|')
+            --start;
+        String word = line.substring(start, cursor);
+        String before = line.substring(0, start).trim();
+        boolean command = before.isEmpty() || before.endsWith("|");
+
+        Completer.Completion completion = command ? completer.completeCommand(word) : completer.completePath(word);
+        List<String> candidates = completion.getCandidates();
+        if (candidates.isEmpty())
+            return;
+        String completed = completion.getCommon();
+        if (candidates.size() == 1 && !completion.isTruncated())
+            completed += completion.isDirectory() ? "/" : " ";
+        if (completed.length() > word.length()) {
+            insert(completed.substring(word.length()));
+            return;
+        }
+        if (candidates.size() > 1)
+            list(candidates, completion.isTruncated(), prompt);
+    }
+
+    // Lists the candidates in columns under the line, then prints the line again
+    private void list(List<String> candidates, boolean truncated, String prompt) {
+        int width = 0;
+        for (String candidate : candidates)
+            width = Math.max(width, candidate.length() + 2);
+        int columns = Math.max(1, SCREEN_WIDTH / width);
+        out.println();
+        for (int i = 0; i < candidates.size(); ++i) {
+            out.print(String.format("%-" + width + "s", candidates.get(i)));
+            if (i % columns == columns - 1 || i == candidates.size() - 1)
+                out.println();
+        }
+        if (truncated)
+            out.println(String.format("(only the first %d are shown)", Completer.MAX_CANDIDATES));
+        out.print(prompt);
+        out.print(line);
+        back(line.length() - cursor);
+    }
+
+    // Runs stty on the terminal, returning what it prints, or null if it fails
+    private static String stty(String args) {
+        try {
+            Process process = new ProcessBuilder(("stty " + args).split(" "))
+                    .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/tty")))
+                    .redirectError(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                    .start();
+            String output;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                output = reader.readLine();
+            }
+            return process.waitFor() == 0 ? (output == null ? "" : output.trim()) : null;
+        } catch (IOException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
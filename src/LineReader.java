@@ -0,0 +1,70 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Splits a stream into lines of raw bytes, for the filters that never need the text itself.
+// Nothing is decoded; a line is the bytes up to, not including, its '\n'.
+class LineReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0, limit = 0;
+    private long bytes = 0;
+
+    public LineReader(InputStream in) {
+        this.in = in;
+    }
+
+    // Returns the next line, or null once the stream has ended.
+    // The last line is returned even if it does not end with '\n'.
+    public byte[] next() throws IOException {
+        byte[] partial = null;
+        int partialLength = 0;
+        while (true) {
+            for (int i = position; i < limit; ++i) {
+                if (buffer[i] == '\n') {
+                    byte[] line = join(partial, partialLength, i);
+                    position = i + 1;
+                    return line;
+                }
+            }
+            //the line goes on past the buffer, keep what there is of it
+            if (limit > position) {
+                int length = limit - position;
+                if (partial == null)
+                    partial = new byte[Math.max(length * 2, 256)];
+                else if (partial.length < partialLength + length)
+                    partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+                System.arraycopy(buffer, position, partial, partialLength, length);
+                partialLength += length;
+            }
+            position = 0;
+            limit = in.read(buffer);
+            if (limit == -1) {
+                limit = 0;
+                return partial == null ? null : Arrays.copyOf(partial, partialLength);
+            }
+            bytes += limit;
+        }
+    }
+
+    // The number of bytes read from the stream so far
+    public long getBytes() {
+        return bytes;
+    }
+
+    private byte[] join(byte[] partial, int partialLength, int end) {
+        byte[] line = new byte[partialLength + end - position];
+        if (partial != null)
+            System.arraycopy(partial, 0, line, 0, partialLength);
+        System.arraycopy(buffer, position, line, partialLength, end - position);
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
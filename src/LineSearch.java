@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A compiled grep pattern, looking for lines that match it in buffers of UTF-8 bytes.
+// A fixed string is searched for in the bytes themselves with Boyer-Moore-Horspool, which skips ahead
+// up to the length of the string at a time and never looks at the lines that do not match;
+// only the lines it finds are picked out of the buffer.
+// A regular expression is run on every line, decoded into a reused char buffer, so no String is made per line.
+// The compiled pattern can be shared between threads; every thread searches with a Search of its own.
+class LineSearch {
+    private final byte[] literal;
+    private final boolean foldCase;
+    private final int[] shift;
+    private final Pattern regex;
+
+    // ignoreCase folds ASCII letters when searching for a fixed string, and all letters otherwise.
+    // Throws PatternSyntaxException if pattern is not a valid regular expression.
+    public LineSearch(String pattern, boolean fixed, boolean ignoreCase) {
+        boolean ascii = pattern.chars().allMatch(c -> c < 128);
+        if (fixed && !pattern.isEmpty() && (ascii || !ignoreCase)) {
+            literal = pattern.getBytes(StandardCharsets.UTF_8);
+            foldCase = ignoreCase;
+            if (foldCase)
+                for (int i = 0; i < literal.length; ++i)
+                    literal[i] = fold(literal[i]);
+            shift = new int[256];
+            Arrays.fill(shift, literal.length);
+            for (int i = 0; i < literal.length - 1; ++i) {
+                shift[literal[i] & 0xff] = literal.length - 1 - i;
+                if (foldCase)
+                    shift[Character.toUpperCase((char) literal[i]) & 0xff] = literal.length - 1 - i;
+            }
+            regex = null;
+        } else {
+            int flags = (fixed ? Pattern.LITERAL : 0) | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            regex = Pattern.compile(pattern, flags);
+            literal = null;
+            foldCase = false;
+            shift = null;
+        }
+    }
+
+    private static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    // Called for every line that matches, which lies in data between start and end, without its '\n'.
+    // number counts lines from 1, and is only kept if the search was asked to.
+    interface LineHandler {
+        void accept(ByteBuffer data, int start, int end, long number) throws IOException;
+    }
+
+    public Search newSearch(boolean numbered) {
+        return new Search(numbered);
+    }
+
+    // The state of searching one input, which may come in several buffers
+    final class Search {
+        private final boolean numbered;
+        private long lineNumber = 1;
+        private final CharsetDecoder decoder;
+        private final Matcher matcher;
+        private CharBuffer chars;
+
+        private Search(boolean numbered) {
+            this.numbered = numbered;
+            if (regex != null) {
+                decoder = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                chars = CharBuffer.allocate(256);
+                matcher = regex.matcher("");
+            } else {
+                decoder = null;
+                matcher = null;
+            }
+        }
+
+        // Hands every matching line of data, from its position to its limit, to handler.
+        // The bytes given must end with a '\n' or at the end of the input, so no line is cut in two.
+        public void lines(ByteBuffer data, LineHandler handler) throws IOException {
+            if (literal != null)
+                literalLines(data, handler);
+            else
+                regexLines(data, handler);
+        }
+
+        private void literalLines(ByteBuffer data, LineHandler handler) throws IOException {
+            int i = data.position(), limit = data.limit();
+            while (i < limit) {
+                int match = indexOf(data, i, limit);
+                if (match == -1) {
+                    if (numbered)
+                        lineNumber += count(data, i, limit);
+                    return;
+                }
+                int start = match;
+                while (start > i && data.get(start - 1) != '\n')
+                    --start;
+                int end = match + literal.length;
+                while (end < limit && data.get(end) != '\n')
+                    ++end;
+                if (numbered)
+                    lineNumber += count(data, i, start);
+                handler.accept(data, start, end, lineNumber);
+                ++lineNumber;
+                i = end + 1;
+            }
+        }
+
+        private void regexLines(ByteBuffer data, LineHandler handler) throws IOException {
+            ByteBuffer line = data.duplicate();
+            int i = data.position(), limit = data.limit();
+            while (i < limit) {
+                int end = i;
+                while (end < limit && data.get(end) != '\n')
+                    ++end;
+                if (chars.capacity() < end - i)
+                    chars = CharBuffer.allocate(Math.max(end - i, chars.capacity() * 2));
+                line.limit(end).position(i);
+                chars.clear();
+                decoder.reset();
+                decoder.decode(line, chars, true);
+                decoder.flush(chars);
+                chars.flip();
+                if (matcher.reset(chars).find())
+                    handler.accept(data, i, end, lineNumber);
+                ++lineNumber;
+                i = end + 1;
+            }
+        }
+
+        // Boyer-Moore-Horspool: compares from the end of the string, and on a mismatch
+        // shifts by how far the byte under the end of the string is from the end of the string
+        private int indexOf(ByteBuffer data, int from, int limit) {
+            int last = literal.length - 1;
+            for (int i = from + last; i < limit; ) {
+                int j = last;
+                while (j >= 0 && literal[j] == byteAt(data, i - last + j))
+                    --j;
+                if (j < 0)
+                    return i - last;
+                i += shift[data.get(i) & 0xff];
+            }
+            return -1;
+        }
+
+        private byte byteAt(ByteBuffer data, int index) {
+            byte b = data.get(index);
+            return foldCase ? fold(b) : b;
+        }
+
+        private int count(ByteBuffer data, int from, int to) {
+            int ret = 0;
+            for (int i = from; i < to; ++i)
+                if (data.get(i) == '\n')
+                    ++ret;
+            return ret;
+        }
+    }
+}
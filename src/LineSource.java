@@ -0,0 +1,15 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+// Text that more pages through, one line at a time.
+// Lines are only produced once they are asked for, so the first page can be shown
+// without reading the whole input.
+interface LineSource extends Closeable {
+    // Returns true if the line with this (zero based) index exists
+    boolean hasLine(int line) throws IOException;
+
+    String getLine(int line) throws IOException;
+
+    // Describes how much of the text has been displayed once the first shownLines lines are printed
+    String progress(int shownLines) throws IOException;
+}
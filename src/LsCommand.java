@@ -0,0 +1,96 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+public class LsCommand implements Command {
+    @Override
+    public String getName() {
+        return "ls";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-l] [-S | -t] [arg1: Directory]\nDisplays the files and subfolders in a directory , default: current working directory. -l shows size and modification time, -S sorts by size, -t by modification time.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-l", "-S", "-t");
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) {
+        if (parser.getArguments().length == 0)
+            parser.setArguments(new String[]{parser.getSession().getWorkingDir()});
+    }
+
+    // With -l every entry also shows its type, size and modification time.
+    // Entries are printed as they are read, unless they are sorted, which needs the whole directory first.
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        boolean longFormat = parser.hasOption("-l");
+        Comparator<DirectoryCache.Entry> order = order(parser);
+        //directories are colored blue when printed straight to the console, and marked with ':' otherwise
+        boolean console = terminal.isConsole(stdout);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MMM d HH:mm", Locale.ENGLISH);
+        String indent = (args.length > 1) ? "     " : "";
+        for (String arg : args) {
+            File f = new File(arg);
+            if (f.isFile()) {
+                if (longFormat) {
+                    printEntry(stdout, "", DirectoryCache.describe(f.toPath()), true, dateFormat, console);
+                } else {
+                    stdout.println(f.getName());
+                    Metrics.written(Terminal.utf8Length(f.getName()) + 1);
+                }
+            } else if (f.isDirectory()) {
+                if (args.length > 1)
+                    stdout.println(directoryName(f.getName(), console));
+                try {
+                    if (order == null) {
+                        DirectoryCache.forEach(f.toPath(), entry -> printEntry(stdout, indent, entry, longFormat, dateFormat, console));
+                    } else {
+                        List<DirectoryCache.Entry> sub = new ArrayList<>(DirectoryCache.list(f.toPath()));
+                        sub.sort(order);
+                        for (DirectoryCache.Entry entry : sub)
+                            printEntry(stdout, indent, entry, longFormat, dateFormat, console);
+                    }
+                } catch (IOException ex) {
+                    throw new TerminalException(String.format("ls: cannot retrieve %s: IO error.", f.getName()));
+                }
+            } else {
+                throw new TerminalException(String.format("ls: cannot access %s: No such file or directory.", f.getName()));
+            }
+        }
+    }
+
+    // Largest first with -S, newest first with -t, or null to keep the order of the directory
+    private static Comparator<DirectoryCache.Entry> order(Parser parser) {
+        if (parser.hasOption("-S"))
+            return Comparator.comparingLong(DirectoryCache.Entry::getSize).reversed();
+        if (parser.hasOption("-t"))
+            return Comparator.comparingLong(DirectoryCache.Entry::getLastModified).reversed();
+        return null;
+    }
+
+    private static void printEntry(PrintStream stdout, String indent, DirectoryCache.Entry entry, boolean longFormat, SimpleDateFormat dateFormat, boolean console) {
+        StringBuilder line = new StringBuilder(indent);
+        if (longFormat) {
+            line.append(entry.isDirectory() ? 'd' : '-');
+            line.append(String.format(" %12d %-12s", entry.getSize(), dateFormat.format(new Date(entry.getLastModified()))));
+        }
+        line.append(entry.isDirectory() ? directoryName(entry.getName(), console) : " " + entry.getName());
+        stdout.println(line);
+        Metrics.written(Terminal.utf8Length(line) + 1);
+    }
+
+    private static String directoryName(String name, boolean console) {
+        if (console)
+            return ConsoleColor.Colorify(ConsoleColor.ANSI.BLUE, " " + name);
+        return ": " + name;
+    }
+}
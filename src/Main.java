@@ -3,57 +3,51 @@
 //TODO: use ConsoleColor to output colorful messages when appropriate (see catch block below)
 //TODO: finish rest of TODOs
 
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class Main {
-    private static Scanner in = new Scanner(System.in);
     public static String stopApplicationMessage = "HALT";
-    public static String homeDir = System.getProperty("user.dir");
-    public static String workingDir = homeDir;
 
     public static void main(String[] args) {
-        Terminal kernel = new Terminal(System.in, System.out);
+        if (args.length > 0 && args[0].equals("-d")) {
+            System.exit(runServer(args));
+        } else if (args.length > 0) {
+            System.exit(runBatch(args));
+        }
+
+        Session session = new Session(System.getProperty("user.dir"), System.in, System.out);
+        Terminal kernel = new Terminal(session);
+        History history = new History(History.defaultFile());
+        kernel.setHistory(history);
+        Runtime.getRuntime().addShutdownHook(new Thread(history::close));
+        LineEditor editor = new LineEditor(kernel);
 
         String input;
         do {
-            System.out.print(ConsoleColor.Colorify(ConsoleColor.ANSI.GREEN, System.getProperty("user.name")));
-            System.out.print(":");
-            System.out.print(ConsoleColor.Colorify(ConsoleColor.ANSI.BLUE, workingDir.replace(homeDir, "~")));
-            System.out.print("$ ");
-
-            input = in.nextLine();
+            kernel.getJobs().reportFinished(System.out);
+            input = editor.readLine(ConsoleColor.Colorify(ConsoleColor.ANSI.GREEN, System.getProperty("user.name")) + ":"
+                    + ConsoleColor.Colorify(ConsoleColor.ANSI.BLUE, session.getWorkingDir().replace(session.getHomeDir(), "~")) + "$ ");
+            //the input has ended
+            if (input == null)
+                break;
             try {
-                String[] res = input.split("\\|");
-                String given = null;
-                for (int i = 0; i < res.length; ++i) {
-                    String entry = res[i];
-                    Parser p = new Parser(entry, given);
-                    String ret = kernel.exec(p);
-                    if (p.getRedirectionType() == Parser.RedirectionType.NoRedirection) {
-                        if (i != res.length - 1) {
-                            given = ret;
-                        } else if (p.getCmd().equals("ls")) {
-                            //replace ":something" with "something" colored blue
-                            ret = ret.replaceAll(":( [^\n]*(\n|$))", ConsoleColor.Colorify(ConsoleColor.ANSI.BLUE, "$1"));
-                        }
-                        System.out.println(ret);
-                    } else {
-                        boolean append = p.getRedirectionType() == Parser.RedirectionType.Append;
-                        try {
-                            OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(p.getRedirectionFilename(), append), StandardCharsets.UTF_8);
-                            if (append)
-                                out.write('\n');
-                            out.write(ret);
-                            out.flush();
-                            out.close();
-                        } catch (Exception ex) {
-                            System.out.println(ConsoleColor.Colorify(ConsoleColor.ANSI.RED, "redirection: unable to redirect output to file."));
-                        }
-                    }
-                }
+                String typed = input;
+                input = history.expand(input);
+                //the line as it runs, with the event it recalls, is what is remembered
+                if (!input.equals(typed))
+                    System.out.println(input);
+                history.add(input);
+                Pipeline pipeline = new Pipeline(kernel, input);
+                if (pipeline.isBackground())
+                    System.out.println(String.format("[%d] started", kernel.getJobs().start(pipeline, input.trim()).getId()));
+                else
+                    pipeline.run(System.out);
             } catch (Exception e) {
                 if (e.getMessage() != null && e.getMessage().equals(stopApplicationMessage)) break;
                 System.out.println(ConsoleColor.Colorify(ConsoleColor.ANSI.RED, e.getMessage()));
@@ -62,4 +56,79 @@ public class Main {
 
         } while (true);
     }
-}
\ No newline at end of file
+
+    // Usage: -d [-p jobs] [port]
+    // Serves clients until killed. Without a port any free one is used; clients find it in Server.infoFile().
+    private static int runServer(String[] args) {
+        int jobs = 1, port = 0;
+        try {
+            for (int i = 1; i < args.length; ++i) {
+                if (args[i].equals("-p"))
+                    jobs = Integer.parseInt(args[++i]);
+                else
+                    port = Integer.parseInt(args[i]);
+            }
+            if (jobs < 1 || port < 0 || port > 65535)
+                throw new IllegalArgumentException();
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println("usage: dabsh -d [-p jobs] [port]");
+            return 2;
+        }
+
+        try {
+            Server server = new Server(port, jobs, Server.infoFile());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException ignored) {
+                }
+            }));
+            System.err.println(String.format("dabsh: serving on port %d.", server.getPort()));
+            server.serve();
+            return 0;
+        } catch (IOException ex) {
+            System.err.println(String.format("dabsh: cannot serve: %s", ex.getMessage()));
+            return 2;
+        }
+    }
+
+    // Usage: [-p jobs] -c "command" | [-p jobs] script_file
+    // A script_file of "-" reads the script from standard input.
+    // Returns the exit status: 0 if every command succeeded, 1 if any failed, 2 for bad usage.
+    private static int runBatch(String[] args) {
+        int jobs = 1;
+        String command = null, script = null;
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if (args[i].equals("-p"))
+                    jobs = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-c"))
+                    command = args[++i];
+                else if (script == null && command == null && (args[i].equals("-") || !args[i].startsWith("-")))
+                    script = args[i];
+                else
+                    throw new IllegalArgumentException();
+            }
+            if (jobs < 1 || (command == null) == (script == null))
+                throw new IllegalArgumentException();
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println("usage: dabsh [-p jobs] -c command | dabsh [-p jobs] script_file");
+            return 2;
+        }
+
+        Batch batch = new Batch(Batch.bufferedStdout(), jobs);
+        try {
+            int failures;
+            if (command != null)
+                failures = batch.run(new BufferedReader(new StringReader(command)));
+            else if (script.equals("-"))
+                failures = batch.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+            else
+                failures = batch.run(Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8));
+            return failures == 0 ? 0 : 1;
+        } catch (IOException ex) {
+            System.err.println(String.format("dabsh: cannot read %s: IO error.", script));
+            return 2;
+        }
+    }
+}
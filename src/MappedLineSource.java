@@ -0,0 +1,109 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static java.lang.Math.min;
+
+// Lines of a file, read through memory mapped windows of the file.
+// The byte offset where each line starts is recorded the first time the line is reached,
+// so jumping back to any line already seen costs nothing, and the file is only scanned
+// as far as the user has paged.
+class MappedLineSource implements LineSource {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+
+    private MappedByteBuffer window;
+    private long windowStart = -1;
+
+    // lineStarts[i] is the offset of line i, lineCount of them are known.
+    // scanned is how far the file has been searched for line breaks.
+    private long[] lineStarts = new long[1024];
+    private int lineCount = 0;
+    private long scanned = 0;
+
+    public MappedLineSource(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        if (size > 0)
+            addLineStart(0);
+    }
+
+    @Override
+    public boolean hasLine(int line) throws IOException {
+        while (lineCount <= line && scanned < size) {
+            scanNextLine();
+        }
+        return line < lineCount;
+    }
+
+    @Override
+    public String getLine(int line) throws IOException {
+        hasLine(line + 1);
+        long start = lineStarts[line];
+        long end = line + 1 < lineCount ? lineStarts[line + 1] : size;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) min(end - start, 4096));
+        for (long i = start; i < end; ++i) {
+            bytes.write(byteAt(i));
+        }
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        if (text.endsWith("\n"))
+            text = text.substring(0, text.length() - 1);
+        if (text.endsWith("\r"))
+            text = text.substring(0, text.length() - 1);
+        return text;
+    }
+
+    @Override
+    public String progress(int shownLines) throws IOException {
+        if (size == 0)
+            return String.format("Displayed %.2f%% of text", 100f);
+        hasLine(shownLines);
+        long shownBytes = shownLines < lineCount ? lineStarts[shownLines] : size;
+        return String.format("Displayed %.2f%% of text", (float) shownBytes / size * 100);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void scanNextLine() throws IOException {
+        while (scanned < size) {
+            //search the mapped window directly, remapping only when the line runs past it
+            byteAt(scanned);
+            int limit = window.capacity();
+            for (int i = (int) (scanned - windowStart); i < limit; ++i) {
+                if (window.get(i) == '\n') {
+                    scanned = windowStart + i + 1;
+                    if (scanned < size)
+                        addLineStart(scanned);
+                    return;
+                }
+            }
+            scanned = windowStart + limit;
+        }
+    }
+
+    private void addLineStart(long offset) {
+        if (lineCount == lineStarts.length)
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        lineStarts[lineCount++] = offset;
+    }
+
+    private byte byteAt(long offset) throws IOException {
+        if (window == null || offset < windowStart || offset >= windowStart + window.capacity()) {
+            windowStart = offset - offset % WINDOW_SIZE;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, min(WINDOW_SIZE, size - windowStart));
+        }
+        return window.get((int) (offset - windowStart));
+    }
+}
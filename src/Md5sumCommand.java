@@ -0,0 +1,5 @@
+public class Md5sumCommand extends ChecksumCommand {
+    public Md5sumCommand() {
+        super("md5sum", "MD5");
+    }
+}
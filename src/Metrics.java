@@ -0,0 +1,166 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts how often every command runs, how long it takes, how many bytes it reads and writes
+// and how many files it touches, for as long as the shell is running.
+// Commands report their I/O through read, written and touched while they run,
+// which adds to the usage of the command running on the current thread, if any.
+// Pool threads outlive the commands that hand them work, so they have no usage of their own:
+// parallel work returns what it did to the calling thread, which counts it there, or counts in a usage of
+// its own from begin that the calling thread adds once the work is done.
+// Running with -Ddabsh.jmx=true also exposes the numbers through JMX.
+class Metrics implements MetricsMBean {
+    static final class Usage {
+        private final LongAdder read = new LongAdder();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder files = new LongAdder();
+    }
+
+    private static final class CommandStats {
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder read = new LongAdder();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder files = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    private static final Map<String, CommandStats> stats = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Usage> current = new ThreadLocal<>();
+
+    static {
+        if (Boolean.getBoolean("dabsh.jmx")) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), new ObjectName("dabsh:type=Metrics"));
+            } catch (JMException ignored) {
+                //metrics are still available through the stats command
+            }
+        }
+    }
+
+    // Starts counting the I/O of a command about to run on this thread,
+    // or of one piece of parallel work on a pool thread, apart from any command
+    public static Usage begin() {
+        Usage usage = new Usage();
+        current.set(usage);
+        return usage;
+    }
+
+    // Stops counting on this pool thread, once its piece of work is done
+    public static void endTask() {
+        current.remove();
+    }
+
+    // Adds what parallel work counted in usage to the command running on this thread
+    public static void add(Usage usage) {
+        read(usage.read.sum());
+        written(usage.written.sum());
+        touched(usage.files.sum());
+    }
+
+    // Adds a finished command, which took nanos nanoseconds, to the totals
+    public static void end(String cmd, Usage usage, long nanos, boolean failed) {
+        current.remove();
+        CommandStats command = stats.computeIfAbsent(cmd, key -> new CommandStats());
+        command.latency.record(nanos);
+        if (failed)
+            command.failures.increment();
+        command.read.add(usage.read.sum());
+        command.written.add(usage.written.sum());
+        command.files.add(usage.files.sum());
+    }
+
+    public static void read(long bytes) {
+        Usage usage = current.get();
+        if (usage != null)
+            usage.read.add(bytes);
+    }
+
+    public static void written(long bytes) {
+        Usage usage = current.get();
+        if (usage != null)
+            usage.written.add(bytes);
+    }
+
+    public static void touched(long files) {
+        Usage usage = current.get();
+        if (usage != null)
+            usage.files.add(files);
+    }
+
+    // Commands ordered by the total time spent in them, the slowest first
+    private static List<Map.Entry<String, CommandStats>> sorted() {
+        List<Map.Entry<String, CommandStats>> ret = new ArrayList<>(stats.entrySet());
+        ret.sort(Comparator.comparingDouble((Map.Entry<String, CommandStats> entry) ->
+                entry.getValue().latency.getMean() * entry.getValue().latency.getCount()).reversed());
+        return ret;
+    }
+
+    private static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    // A table with a line per command, latencies in milliseconds
+    public static String table() {
+        if (stats.isEmpty())
+            return "No commands have run yet.";
+        StringBuilder ret = new StringBuilder(String.format("%-8s %7s %7s %10s %10s %10s %10s %10s %14s %14s %9s%n",
+                "command", "calls", "failed", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms", "read", "written", "files"));
+        for (Map.Entry<String, CommandStats> entry : sorted()) {
+            CommandStats command = entry.getValue();
+            LatencyHistogram latency = command.latency;
+            ret.append(String.format("%-8s %7d %7d %10.3f %10.3f %10.3f %10.3f %10.3f %14d %14d %9d%n",
+                    entry.getKey(), latency.getCount(), command.failures.sum(), millis(latency.getMean()),
+                    millis(latency.getPercentile(50)), millis(latency.getPercentile(90)), millis(latency.getPercentile(99)),
+                    millis(latency.getMax()), command.read.sum(), command.written.sum(), command.files.sum()));
+        }
+        return ret.toString();
+    }
+
+    // The same numbers as an object with a key per command, for other programs to read
+    public static String json() {
+        StringBuilder ret = new StringBuilder("{");
+        for (Map.Entry<String, CommandStats> entry : sorted()) {
+            CommandStats command = entry.getValue();
+            LatencyHistogram latency = command.latency;
+            if (ret.length() > 1)
+                ret.append(',');
+            ret.append(String.format(Locale.ROOT, "\"%s\":{\"calls\":%d,\"failures\":%d,\"latencyMs\":{\"mean\":%.3f,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"max\":%.3f},\"bytesRead\":%d,\"bytesWritten\":%d,\"filesTouched\":%d}",
+                    entry.getKey(), latency.getCount(), command.failures.sum(), millis(latency.getMean()),
+                    millis(latency.getPercentile(50)), millis(latency.getPercentile(90)), millis(latency.getPercentile(99)),
+                    millis(latency.getMax()), command.read.sum(), command.written.sum(), command.files.sum()));
+        }
+        return ret.append('}').toString();
+    }
+
+    public static void clear() {
+        stats.clear();
+    }
+
+    @Override
+    public String getReport() {
+        return table();
+    }
+
+    @Override
+    public String getJson() {
+        return json();
+    }
+
+    @Override
+    public long getInvocations() {
+        long ret = 0;
+        for (CommandStats command : stats.values())
+            ret += command.latency.getCount();
+        return ret;
+    }
+
+    @Override
+    public void reset() {
+        clear();
+    }
+}
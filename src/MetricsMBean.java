@@ -0,0 +1,10 @@
+// What the command metrics look like through JMX, as the dabsh:type=Metrics bean
+public interface MetricsMBean {
+    String getReport();
+
+    String getJson();
+
+    long getInvocations();
+
+    void reset();
+}
@@ -0,0 +1,40 @@
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class MkdirCommand implements Command {
+    @Override
+    public String getName() {
+        return "mkdir";
+    }
+
+    @Override
+    public String getHelp() {
+        return "arg1 : dir\nCreates an empty directory in path dir.";
+    }
+
+    @Override
+    public boolean changesFiles() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length < 1)
+            throw new ParsingException(String.format("%s: too few arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        for (String arg : parser.getArguments()) {
+            File f = new File(arg);
+            if (f.exists()) {
+                throw new TerminalException(String.format("mkdir: cannot create directory %s: File exists.", f.getName()));
+            }
+            if (!f.mkdirs()) {
+                throw new TerminalException(String.format("mkdir: cannot create directory %s: IO error.", f.getName()));
+            }
+            Metrics.touched(1);
+        }
+    }
+}
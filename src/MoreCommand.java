@@ -0,0 +1,87 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+import static java.lang.Math.max;
+
+public class MoreCommand implements Command {
+    @Override
+    public String getName() {
+        return "more";
+    }
+
+    @Override
+    public String getHelp() {
+        return "arg1: file_path\nDisplays some of data in file_path, supports scrolling by Enter: next line, Space: one page, b: back one page.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (piped && parser.getArguments().length == 0)
+            return;
+        if (parser.getArguments().length != 1)
+            throw new ParsingException(String.format("%s: only one argument is supported.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        if (parser.getArguments().length == 0)
+            more(terminal, stdin);
+        else
+            more(terminal, parser.getArguments()[0]);
+    }
+
+    private static void moreText(Terminal terminal, LineSource data) throws TerminalException, IOException {
+        final int pageSize = 10;
+        PrintStream out = terminal.getConsole();
+        int lastLine = 0, display = pageSize;
+        while (true) {
+            int toLine = display + lastLine;
+            while (lastLine < toLine && data.hasLine(lastLine)) {
+                out.println(data.getLine(lastLine++));
+            }
+            out.printf("%s, Space: Display next page, Enter: Display next line, b: Display previous page , q : exit : ",
+                    data.progress(lastLine));
+            String c = terminal.readLine();
+            if (c.equals(" ")) {
+                display = pageSize;
+            } else if (c.equals("b")) {
+                display = pageSize;
+                lastLine = max(0, lastLine - pageSize * 2);
+            } else if (c.isEmpty()) {
+                display = 1;
+            } else if (c.equals("q")) {
+                break;
+            } else
+                throw new TerminalException("Unsupported input for argument more");
+
+        }
+    }
+
+    private static void more(Terminal terminal, InputStream stdin) throws TerminalException {
+        try (LineSource data = new ReaderLineSource(new BufferedReader(new InputStreamReader(stdin, StandardCharsets.UTF_8)))) {
+            moreText(terminal, data);
+        } catch (IOException ex) {
+            throw new TerminalException("more: cannot read piped input: IO error");
+        }
+    }
+
+    private static void more(Terminal terminal, String arg) throws TerminalException {
+        try (LineSource data = new MappedLineSource(Paths.get(arg))) {
+            Metrics.touched(1);
+            moreText(terminal, data);
+        } catch (IOException ex) {
+            throw new TerminalException(String.format("more: cannot read %s: IO error", Paths.get(arg).getFileName()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MvCommand implements Command {
+    @Override
+    public String getName() {
+        return "mv";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-r] [-v] [-j jobs] arg1: file/dir arg2: file/dir\nMoves file/directory from arg1 to arg2, -r moves directories with their contents, -v tells whether each file was renamed or copied, -j moves that many files at the same time.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-j", "-r", "-v");
+    }
+
+    @Override
+    public List<String> getValueOptions() {
+        return Collections.singletonList("-j");
+    }
+
+    @Override
+    public boolean changesFiles() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        CpCommand.checkSources(parser);
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        boolean recursive = parser.hasOption("-r"), verbose = parser.hasOption("-v");
+        Path destinationDir = Paths.get(args[args.length - 1]);
+        if (args.length > 2 && !destinationDir.toFile().isDirectory()) {
+            throw new TerminalException(String.format("mv: target %s is not a directory.", destinationDir.getFileName()));
+        }
+        CpCommand.forEachSource(args, "mv", "moved", CpCommand.jobs(parser), source -> move(source, destinationDir, recursive, verbose, CpCommand.treeParallelism(parser), stdout), stdout);
+    }
+
+    // Renames the source in place when possible, which takes the same time however big it is.
+    // Only when source and destination are on different file systems is it copied, checked and then removed.
+    // Trees are copied and removed on parallelism threads, as given by CpCommand.treeParallelism.
+    // With verbose, reports which of the two ways was taken.
+    // Returns the number of bytes moved, or CpCommand.IGNORED for a directory without recursive.
+    private static long move(Path sourcePath, Path destinationPath, boolean recursive, boolean verbose, int parallelism, PrintStream stdout) throws TerminalException {
+        Path dest = destinationPath;
+        if (destinationPath.toFile().isDirectory())
+            dest = destinationPath.resolve(sourcePath.getFileName());
+
+        File source = sourcePath.toFile();
+        if (source.isDirectory() && !recursive) {
+            stdout.println(String.format("mv: Directory %s was ignored.", sourcePath.getFileName()));
+            return CpCommand.IGNORED;
+        } else if (!source.exists()) {
+            throw new TerminalException(String.format("mv: cannot move %s, no such file or directory.", sourcePath.getFileName()));
+        }
+
+        long size = source.isFile() ? source.length() : 0;
+        try {
+            Files.move(sourcePath, dest, StandardCopyOption.ATOMIC_MOVE);
+            Metrics.touched(1);
+            if (verbose)
+                stdout.println(String.format("mv: renamed %s -> %s", sourcePath, dest));
+            return size;
+        } catch (AtomicMoveNotSupportedException ignored) {
+            //different file systems, the data has to be copied
+        } catch (IOException ex) {
+            throw new TerminalException(String.format("mv: cannot move %s: IO error.", sourcePath.getFileName()));
+        }
+
+        if (source.isDirectory()) {
+            //every file is checked against its source, and the source is only removed if all of them match
+            try {
+                size = FileTree.copyTree("mv", sourcePath, dest, true, parallelism);
+            } catch (TerminalException ex) {
+                throw new TerminalException(ex.getMessage() + "\n" + String.format("mv: copy of %s is incomplete, source was kept.", sourcePath.getFileName()));
+            }
+            FileTree.deleteTree("mv", sourcePath, parallelism);
+        } else {
+            //the file is hashed as it is copied and checked against the copy, and the source is only removed if they match
+            try {
+                size = CpCommand.copy(sourcePath, dest, "mv", false, true, 0, stdout);
+            } catch (TerminalException ex) {
+                throw new TerminalException(ex.getMessage() + "\n" + String.format("mv: copy of %s is incomplete, source was kept.", sourcePath.getFileName()));
+            }
+            try {
+                Files.delete(sourcePath);
+            } catch (IOException ex) {
+                throw new TerminalException(String.format("mv: cannot remove %s after copying it: IO error.", sourcePath.getFileName()));
+            }
+        }
+        if (verbose)
+            stdout.println(String.format("mv: copied %s -> %s across file systems (%d bytes)", sourcePath, dest, size));
+        return size;
+    }
+}
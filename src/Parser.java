@@ -1,15 +1,14 @@
-import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.*;
 
 public class Parser {
     private String[] args; // Will be filled by arguments extracted by parse method
     private String cmd; // Will be filled by the command extracted by parse method
+    private final Session session; // Relative paths are resolved against its working directory
+    private Command command; // What cmd names
+    private Map<String, String> options = new HashMap<>(); // Options given before the arguments, mapped to their value ("" if none)
     private RedirectionType redirectionType;
     private String redirectionFilename;
 
@@ -28,144 +27,118 @@ public class Parser {
     // to args and cmd variables
     // It should also print error messages in case of too few arguments for a commands
     // eg. “cp requires 2 arguments”
-    final static private List<String> supportedCommands = Arrays.asList("ls", "cp", "mv", "rm", "pwd", "cat", "cd", "mkdir", "rmdir", "more", "args", "date", "help", "clear", "exit");
-    final static private List<String> nopathCommands = Arrays.asList("pwd", "more", "args", "date", "help", "clear", "exit");
-
-    public Parser(String input, String givenInput) throws ParsingException {
-        input = input.trim();
-        if (input.length() == 0) {
-            throw new ParsingException("");
-        }
-        String[] res = input.split(">>|>");
-        //Split does not put trailing empty strings, so I need to check if the last character is >
-        if (input.charAt(input.length() - 1) == '>') {
-            throw new ParsingException("dabsh: invalid syntax near redirection symbol");
+    // The commands, their options and whether they take paths are all found through Commands
+    public Parser(Session session, CommandLine.Stage stage, boolean piped) throws ParsingException {
+        this.session = session;
+        redirectionType = stage.getRedirectionType();
+        if (redirectionType != RedirectionType.NoRedirection) {
+            CommandLine.Word target = stage.getRedirectionTarget();
+            if (IdentifyPath(target) != PathType.Singleton)
+                throw new ParsingException(String.format("dabsh: %s is not a valid file for redirection.", target.getText()));
+            redirectionFilename = session.resolve(target.getText());
         }
 
-        res[0] = res[0].trim();
-
-        if (res.length > 2)
-            throw new ParsingException("dabsh: current version does not support multiple redirection.");
-        if (res.length == 2) {
-            res[1] = res[1].trim();
-            if (IdentifyPath(res[1]) != PathType.Singleton)
-                throw new ParsingException(String.format("dabsh: %s is not a valid file for redirection.", res[1]));
+        List<CommandLine.Word> words = stage.getWords();
+        String[] data = new String[words.size()];
+        for (int i = 0; i < data.length; ++i)
+            data[i] = words.get(i).getText();
 
-            redirectionFilename = getAbsolutePath(res[1]);
-            if (input.contains(">>"))
-                redirectionType = RedirectionType.Append;
-            else
-                redirectionType = RedirectionType.Truncate;
-        } else
-            redirectionType = RedirectionType.NoRedirection;
-
-        String[] data = splitInput(res[0]);
-
-        if (data.length == 0 || data[0].length() == 0)
+        if (data[0].length() == 0)
             throw new ParsingException("dabsh: empty commands cannot be redirected to files.");
 
         cmd = data[0];
-        args = Arrays.copyOfRange(data, 1, data.length);
-        if (!nopathCommands.contains(cmd)) {
+        command = Commands.get(cmd);
+        if (command == null)
+            throw new ParsingException(String.format("%s: unable to parse this particular command.", cmd));
+        int first = 1 + extractOptions(data);
+        args = Arrays.copyOfRange(data, first, data.length);
+        if (command.takesPaths()) {
             ArrayList<String> completeargs = new ArrayList<>();
-            for (String arg : args) {
+            //leading arguments such as a pattern are neither resolved nor expanded
+            int literals = Math.min(command.literalArguments(), words.size() - first);
+            for (CommandLine.Word arg : words.subList(first, first + literals))
+                completeargs.add(arg.getText());
+            for (CommandLine.Word arg : words.subList(first + literals, words.size())) {
                 switch (IdentifyPath(arg)) {
                     case Invalid:
                         throw new ParsingException("dabsh: invalid path given in arguments");
                     case Wildcard:
-                        completeargs.addAll(decomposeWildCard(arg));
+                        completeargs.addAll(decomposeWildCard(arg.getText()));
                         break;
                     case Singleton:
-                        completeargs.add(getAbsolutePath(arg));
+                        completeargs.add(session.resolve(arg.getText()));
                         break;
                 }
             }
             args = completeargs.toArray(new String[0]);
         }
-        if (givenInput == null)
-            CheckCommandAndArguments();
-        else if (cmd.equals("more") && args.length == 0) {
-            args = new String[]{null, givenInput};
-        }
+        command.check(this, piped);
     }
 
-    public Parser(String input) throws ParsingException {
-        this(input, null);
+    // Parses input as a single command, which may not contain pipes
+    public Parser(Session session, String input) throws ParsingException {
+        this(session, singleStage(input), false);
     }
 
-    private static String[] splitInput(String subjectString) {
-        List<String> matchList = new ArrayList<>();
+    private static CommandLine.Stage singleStage(String input) throws ParsingException {
+        List<CommandLine.Stage> stages = CommandLine.parse(input).getStages();
+        if (stages.size() > 1)
+            throw new ParsingException("dabsh: a pipeline is not a single command.");
+        return stages.get(0);
+    }
 
-        //Explanation of regex:
-        //[^"'\s]+ matches one or more of anything but whitespace or quotations
-        //"[^"]*" matches double quotation marks around zero or more of anything but double quotations
-        //'[^']*' matches single quotation marks around zero or more of anything but single quotations
-        // | makes it match any of the three matchers.
-        Pattern regex = Pattern.compile("[^\"'\\s]+|\"([^\"]*)\"|'([^']*)'");
-        Matcher regexMatcher = regex.matcher(subjectString);
-        while (regexMatcher.find()) {
-            if (regexMatcher.group(1) != null)
-                matchList.add(regexMatcher.group(1));
-            else if (regexMatcher.group(2) != null)
-                matchList.add(regexMatcher.group(2));
-            else
-                matchList.add(regexMatcher.group(0));
+    // Fills options from the words following the command, and returns how many words they took.
+    // Options must come before all other arguments, and "--" ends them explicitly.
+    // Several options can share one word, as in "-rj 4" or "-lS".
+    private int extractOptions(String[] data) throws ParsingException {
+        List<String> allowed = command.getOptions();
+        int i = 1;
+        for (; i < data.length && data[i].startsWith("-") && data[i].length() > 1; ++i) {
+            String word = data[i];
+            if (word.equals("--"))
+                return i;
+            //a whole word such as -name is an option of its own
+            if (word.length() > 2 && allowed.contains(word)) {
+                if (command.getValueOptions().contains(word)) {
+                    if (++i == data.length)
+                        throw new ParsingException(String.format("%s: option %s requires an argument.", data[0], word));
+                    options.put(word, data[i]);
+                } else {
+                    options.put(word, "");
+                }
+                continue;
+            }
+            for (int j = 1; j < word.length(); ++j) {
+                String option = "-" + word.charAt(j);
+                if (!allowed.contains(option))
+                    throw new ParsingException(String.format("%s: invalid option %s.", data[0], option));
+                if (command.getValueOptions().contains(option)) {
+                    //the value is the rest of the word, or the next word
+                    String value = word.substring(j + 1);
+                    if (value.isEmpty()) {
+                        if (++i == data.length)
+                            throw new ParsingException(String.format("%s: option %s requires an argument.", data[0], option));
+                        value = data[i];
+                    }
+                    options.put(option, value);
+                    break;
+                }
+                options.put(option, "");
+            }
         }
-        return matchList.toArray(new String[0]);
+        return i - 1;
     }
 
-    private void CheckCommandAndArguments() throws ParsingException {
-        switch (cmd) {
-            case "date":
-            case "clear":
-            case "exit":
-            case "pwd":
-                if (args.length > 0)
-                    throw new ParsingException(String.format("%s: too many arguments.", cmd));
-                return;
-            case "cd":
-                if (args.length == 0)
-                    args = new String[]{Main.homeDir};
-                if (args.length > 1)
-                    throw new ParsingException(String.format("%s: too many arguments.", cmd));
-                return;
-            case "help":
-            case "args":
-                if (args.length > 1)
-                    throw new ParsingException(String.format("%s: too many arguments.", cmd));
-                if (args.length != 0 && !supportedCommands.contains(args[0]))
-                    throw new ParsingException(String.format("%s: %s: unsupported command.", cmd, args[0]));
-                return;
-            case "more":
-                if (args.length != 1)
-                    throw new ParsingException(String.format("%s: only one argument is supported.", cmd));
-                return;
-            case "mkdir":
-            case "rmdir":
-            case "rm":
-                if (args.length < 1)
-                    throw new ParsingException(String.format("%s: too few arguments.", cmd));
-                return;
-            case "cp":
-            case "mv":
-                if (args.length == 0)
-                    throw new ParsingException(String.format("%s: too few arguments.", cmd));
-                else if (args.length == 1)
-                    throw new ParsingException(String.format("%s: destination argument missing.", cmd));
-            case "ls":
-                if (args.length == 0)
-                    args = new String[]{Main.workingDir};
-                return;
-            case "cat":
+    // Fails unless option, if given, is a positive number of jobs
+    public void checkJobsOption(String option) throws ParsingException {
+        if (!options.containsKey(option))
+            return;
+        try {
+            if (Integer.parseInt(options.get(option)) > 0)
                 return;
-            default:
-                throw new ParsingException(String.format("%s: unable to parse this particular command.", cmd));
-
+        } catch (NumberFormatException ignored) {
         }
-    }
-
-    private static boolean isValidWildCard(String filename) {
-        return (filename.matches("[^<>:\"/\\\\|?]+"));
+        throw new ParsingException(String.format("%s: %s: invalid number of jobs %s.", cmd, option, options.get(option)));
     }
 
     private static boolean isValidSingletonPath(String path) {
@@ -177,78 +150,65 @@ public class Parser {
         }
     }
 
-    private static PathType IdentifyPath(String path) {
+    // Quoted words are never wildcards, so "*.txt" names a file called *.txt
+    private static PathType IdentifyPath(CommandLine.Word word) {
+        String path = word.getText();
         if (path == null || path.length() == 0) return PathType.Invalid;
 
-        if (path.equals("~") || path.equals("..") || isValidSingletonPath(path)) return PathType.Singleton;
-
-        int nLastBackslash = path.lastIndexOf('\\');
+        if (!word.isQuoted() && Glob.isPattern(path))
+            return Glob.isValid(path) ? PathType.Wildcard : PathType.Invalid;
 
-        String fileName = path.substring(nLastBackslash + 1);
-        String directory = path.substring(0, nLastBackslash + 1);
+        if (path.equals("~") || path.equals("..") || isValidSingletonPath(path)) return PathType.Singleton;
 
-        if (isValidSingletonPath(directory) && isValidWildCard(fileName))
-            return PathType.Wildcard;
-        else
-            return PathType.Invalid;
+        return PathType.Invalid;
     }
 
     private List<String> decomposeWildCard(String path) throws ParsingException {
-        int nLastBackslash = path.lastIndexOf('\\');
-
-        String fileName = path.substring(nLastBackslash + 1);
-        fileName = fileName.replaceAll("\\.", "\\\\.");
-        fileName = fileName.replaceAll("\\*", ".*");
-
-
-        String directory = path.substring(0, nLastBackslash + 1);
-        Path parent = Paths.get(getAbsolutePath(directory));
-        File[] ret = parent.toFile().listFiles();
-        if (ret == null)
+        Glob glob = Glob.compile(path);
+        Path parent = Paths.get(glob.getBase().isEmpty() ? session.getWorkingDir() : session.resolve(glob.getBase()));
+        List<String> res = new ArrayList<>();
+        try {
+            for (Path current : glob.expand(parent))
+                res.add(current.toString());
+        } catch (IOException ignored) {
             throw new ParsingException("dabsh: No files found.");
-        else {
-            List<String> res = new ArrayList<>();
-            for (File current : ret) {
-
-                if (current.toPath().getFileName().toString().matches(fileName)) {
-                    res.add(current.toString());
-                }
-            }
-            if (res.size() == 0)
-                throw new ParsingException("dabsh: No files found.");
-            else
-                return res;
         }
+        if (res.size() == 0)
+            throw new ParsingException("dabsh: No files found.");
+        else
+            return res;
     }
 
-    private String getAbsolutePath(String pathString) {
-        if (pathString.equals("~"))
-            return Main.homeDir;
-        else if (pathString.equals("..")) {
-            Path tmp = Paths.get(Main.workingDir).getParent();
-            if (tmp == null)
-                return Main.workingDir;
-            else
-                return tmp.toString();
-        }
-
-        Path path = Paths.get(pathString);
-        if (path.isAbsolute()) {
-            return path.toString();
-        } else {
-            return Paths.get(Main.workingDir, pathString).toString();
-        }
+    public String getCmd() {
+        return cmd;
     }
 
+    public Session getSession() {
+        return session;
+    }
 
-    public String getCmd() {
-        return cmd;
+    public Command getCommand() {
+        return command;
     }
 
     public String[] getArguments() {
         return args;
     }
 
+    // Replaces the arguments, for commands that fill in defaults
+    public void setArguments(String[] args) {
+        this.args = args;
+    }
+
+    public boolean hasOption(String option) {
+        return options.containsKey(option);
+    }
+
+    // Returns the value given to option, or null if the option was not given
+    public String getOption(String option) {
+        return options.get(option);
+    }
+
     public RedirectionType getRedirectionType() {
         return redirectionType;
     }
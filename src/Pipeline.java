@@ -0,0 +1,179 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Runs the stages of a piped command line at the same time.
+// Every stage gets its own thread, and consecutive stages are connected by a bounded pipe,
+// so a stage can start printing before the stage feeding it has finished,
+// and memory stays flat no matter how much data flows through the pipeline.
+// A line ending with '&' is only parsed here; it is up to the caller to run it as a job.
+class Pipeline {
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+    private final Terminal kernel;
+    private final List<Parser> stages = new ArrayList<>();
+    private final boolean background;
+
+    public Pipeline(Terminal kernel, String input) throws ParsingException {
+        this.kernel = kernel;
+        CommandLine line = CommandLine.parse(input);
+        List<CommandLine.Stage> parsed = line.getStages();
+        for (int i = 0; i < parsed.size(); ++i) {
+            stages.add(new Parser(kernel.getSession(), parsed.get(i), i > 0));
+        }
+        background = line.isBackground();
+        if (background)
+            checkBackground();
+        else
+            checkForeground();
+    }
+
+    // Commands that only end when they are killed would leave the shell waiting forever
+    private void checkForeground() throws ParsingException {
+        for (Parser p : stages)
+            if (p.getCommand().isEndless(p))
+                throw new ParsingException(String.format("dabsh: %s runs until it is killed, end the line with & to run it in the background.", p.getCmd()));
+    }
+
+    // Commands that talk to the user or change the shell cannot run while the shell goes on without them
+    private void checkBackground() throws ParsingException {
+        for (int i = 0; i < stages.size(); ++i) {
+            Parser p = stages.get(i);
+            if (p.getCommand().usesShell() || (i == 0 && p.getCmd().equals("cat") && p.getArguments().length == 0))
+                throw new ParsingException(String.format("dabsh: %s cannot run in the background.", p.getCmd()));
+        }
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    // Whether some stage only ends when it is killed, as tail -f does
+    public boolean isEndless() {
+        for (Parser p : stages)
+            if (p.getCommand().isEndless(p))
+                return true;
+        return false;
+    }
+
+    // Every path the pipeline reads or writes, as far as can be told before running it
+    public List<String> getPaths() {
+        List<String> paths = new ArrayList<>();
+        for (Parser p : stages) {
+            paths.addAll(Arrays.asList(p.getArguments()));
+            if (p.getRedirectionFilename() != null)
+                paths.add(p.getRedirectionFilename());
+        }
+        return paths;
+    }
+
+    public void run(PrintStream console) throws Exception {
+        int n = stages.size();
+        InputStream[] stdins = new InputStream[n];
+        PrintStream[] stdouts = new PrintStream[n];
+
+        //output still buffered for a file this line reads has to reach the file first
+        try {
+            List<String> arguments = new ArrayList<>();
+            for (Parser p : stages)
+                arguments.addAll(Arrays.asList(p.getArguments()));
+            RedirectionPool.flush(arguments);
+        } catch (IOException ex) {
+            throw new TerminalException("redirection: unable to write buffered output.");
+        }
+
+        //wire every stage up before starting any, so a bad redirection leaves nothing running
+        try {
+            for (int i = 0; i < n; ++i) {
+                Parser p = stages.get(i);
+                boolean last = i == n - 1;
+                if (p.getRedirectionType() != Parser.RedirectionType.NoRedirection) {
+                    stdouts[i] = openRedirection(p);
+                    //whatever follows a redirected stage gets nothing, as in bash
+                    if (!last)
+                        stdins[i + 1] = new ByteArrayInputStream(new byte[0]);
+                } else if (last) {
+                    stdouts[i] = console;
+                } else {
+                    PipedInputStream pipe = new Pipe(PIPE_BUFFER_SIZE);
+                    stdouts[i] = new PrintStream(new PipedOutputStream(pipe), true);
+                    stdins[i + 1] = pipe;
+                }
+            }
+        } catch (TerminalException ex) {
+            for (PrintStream stdout : stdouts)
+                if (stdout != null && stdout != console)
+                    stdout.close();
+            throw ex;
+        }
+
+        Exception[] errors = new Exception[n];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < n - 1; ++i) {
+            Thread t = new Thread(stage(i, stdins[i], stdouts[i], console, errors), "pipeline-" + stages.get(i).getCmd());
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        stage(n - 1, stdins[n - 1], stdouts[n - 1], console, errors).run();
+
+        try {
+            for (Thread t : threads)
+                t.join();
+        } catch (InterruptedException ex) {
+            //a killed job stops every stage, not only the one running on its own thread
+            for (Thread t : threads)
+                t.interrupt();
+            throw ex;
+        }
+        for (Exception e : errors)
+            if (e != null)
+                throw e;
+    }
+
+    private Runnable stage(int index, InputStream stdin, PrintStream stdout, PrintStream console, Exception[] errors) {
+        return () -> {
+            try {
+                kernel.exec(stages.get(index), stdin, stdout);
+            } catch (Exception e) {
+                errors[index] = e;
+            } finally {
+                if (stdout != console)
+                    stdout.close();
+                //closing our end tells the upstream stage nobody is listening anymore
+                if (stdin != null) {
+                    try {
+                        stdin.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        };
+    }
+
+    private static PrintStream openRedirection(Parser p) throws TerminalException {
+        boolean append = p.getRedirectionType() == Parser.RedirectionType.Append;
+        try {
+            return RedirectionStream.open(p.getRedirectionFilename(), append);
+        } catch (IOException ex) {
+            throw new TerminalException("redirection: unable to redirect output to file.");
+        }
+    }
+
+    // A pipe whose writer learns the reader is gone as soon as it closes, as when head has printed its lines,
+    // rather than once its wait for room in the pipe times out a second later
+    private static final class Pipe extends PipedInputStream {
+        Pipe(int size) {
+            super(size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+}
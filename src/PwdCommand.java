@@ -0,0 +1,30 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class PwdCommand implements Command {
+    @Override
+    public String getName() {
+        return "pwd";
+    }
+
+    @Override
+    public String getHelp() {
+        return "no arguments\nDisplays the current working directory.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length > 0)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        Terminal.print(stdout, terminal.getSession().getWorkingDir());
+    }
+}
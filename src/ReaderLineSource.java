@@ -0,0 +1,47 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lines coming from a stream, such as the output of the previous command in a pipeline.
+// Only the lines read so far are kept, so paging back works but nothing is read ahead.
+class ReaderLineSource implements LineSource {
+    private final BufferedReader reader;
+    private final List<String> lines = new ArrayList<>();
+    private boolean exhausted = false;
+
+    public ReaderLineSource(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasLine(int line) throws IOException {
+        while (!exhausted && lines.size() <= line) {
+            String current = reader.readLine();
+            if (current == null)
+                exhausted = true;
+            else
+                lines.add(current);
+        }
+        return line < lines.size();
+    }
+
+    @Override
+    public String getLine(int line) throws IOException {
+        hasLine(line);
+        return lines.get(line);
+    }
+
+    @Override
+    public String progress(int shownLines) {
+        //the total is only known once the stream has ended
+        if (exhausted)
+            return String.format("Displayed %.2f%% of text", (float) shownLines / lines.size() * 100);
+        return String.format("Displayed %d lines", shownLines);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the files that output is redirected to open between commands, each with a buffer of its own,
+// so a script appending to the same log over and over does not open and close it every time.
+// A pooled writer serves one command at a time. A command redirecting to a file whose writer is held, such as by
+// a background job or another stage of the same line, gets a writer of its own that is closed when it is done,
+// rather than waiting for one that may never be given back.
+// Writers not used for a few seconds are flushed and closed, as are the least recently used ones
+// once too many files are open.
+//
+// When output reaches the file depends on -Ddabsh.redirect:
+// write (the default) writes it when the command ends, fsync also forces it to disk then,
+// and batch keeps it in the buffer until the buffer fills, the writer is closed,
+// or a later command of this shell names the file (or a directory above it) and might read it.
+class RedirectionPool {
+    enum FlushPolicy {
+        Write, Batch, Fsync
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_OPEN = 64;
+    private static final long IDLE_MILLIS = 5000;
+
+    static final FlushPolicy policy = policy(System.getProperty("dabsh.redirect", "write"));
+
+    static final class Writer {
+        private final Path path;
+        private final FileChannel channel;
+        private final Object fileKey;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final boolean pooled;
+        private boolean inUse = false;
+        private long lastUsed;
+
+        // A writer that is not pooled and appends opens the file for appending, so its writes go after those
+        // of the writer holding the file even though both write at once
+        private Writer(Path path, boolean pooled, boolean append) throws IOException {
+            this.path = path;
+            this.pooled = pooled;
+            this.channel = !pooled && append
+                    ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                    : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        }
+
+        void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining())
+                    drain();
+                int n = Math.min(len, buffer.remaining());
+                buffer.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        // Writes out whatever is buffered, leaving the channel positioned after it
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        // Drains first, so bytes written to the channel directly come after everything printed before
+        FileChannel getChannel() throws IOException {
+            drain();
+            return channel;
+        }
+
+        // Whether path still names the file that is open, rather than one that replaced it or nothing at all
+        private boolean isCurrent() {
+            try {
+                return fileKey != null && fileKey.equals(Files.readAttributes(path, BasicFileAttributes.class).fileKey());
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        private void close() throws IOException {
+            try {
+                drain();
+                if (policy == FlushPolicy.Fsync)
+                    channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final Map<Path, Writer> writers = new LinkedHashMap<>(16, 0.75f, true);
+
+    static {
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread t = new Thread(task, "redirection-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(RedirectionPool::evictIdle, IDLE_MILLIS, IDLE_MILLIS / 5, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(RedirectionPool::closeAll, "redirection-flush"));
+    }
+
+    private static FlushPolicy policy(String name) {
+        for (FlushPolicy p : FlushPolicy.values())
+            if (p.name().equalsIgnoreCase(name))
+                return p;
+        return FlushPolicy.Write;
+    }
+
+    // Takes the writer of filename for one command, opening the file if it is not open already,
+    // or a writer of its own if the pooled one is held.
+    // The file is emptied first unless append is true.
+    public static Writer acquire(String filename, boolean append) throws IOException {
+        Path path = Paths.get(filename).toAbsolutePath().normalize();
+        Writer writer;
+        synchronized (writers) {
+            writer = writers.get(path);
+            if (writer != null && writer.inUse) {
+                writer = new Writer(path, false, append);
+                writer.inUse = true;
+            } else if (writer != null && !writer.isCurrent()) {
+                //the file was removed or replaced since, and what is buffered belongs to the old one
+                writers.remove(path);
+                writer.close();
+                writer = null;
+            }
+            if (writer == null) {
+                //a new file changes the listing of its directory, while changes to an existing one are caught by the watcher
+                if (Files.notExists(path))
+                    DirectoryCache.clear();
+                writer = new Writer(path, true, false);
+                writers.put(path, writer);
+                evictEldest();
+            }
+            writer.inUse = true;
+        }
+
+        try {
+            if (append && !writer.pooled) {
+                //opened for appending already
+            } else if (append) {
+                writer.drain();
+                writer.channel.position(writer.channel.size());
+            } else {
+                writer.buffer.clear();
+                writer.channel.truncate(0);
+                writer.channel.position(0);
+            }
+        } catch (IOException ex) {
+            release(writer);
+            throw ex;
+        }
+        return writer;
+    }
+
+    // Gives the writer back once the command is done with it
+    public static void release(Writer writer) throws IOException {
+        if (!writer.pooled) {
+            writer.close();
+            return;
+        }
+        try {
+            if (policy != FlushPolicy.Batch)
+                writer.drain();
+            if (policy == FlushPolicy.Fsync)
+                writer.channel.force(false);
+        } finally {
+            synchronized (writers) {
+                writer.inUse = false;
+                writer.lastUsed = System.currentTimeMillis();
+            }
+        }
+    }
+
+    // Writes out what is buffered for any of paths, or for files below them,
+    // before a command that may read them runs
+    public static void flush(Collection<String> paths) throws IOException {
+        if (policy != FlushPolicy.Batch || paths.isEmpty())
+            return;
+        synchronized (writers) {
+            for (Writer writer : writers.values()) {
+                if (writer.inUse || writer.buffer.position() == 0)
+                    continue;
+                for (String path : paths) {
+                    if (writer.path.startsWith(Paths.get(path).toAbsolutePath().normalize())) {
+                        writer.drain();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void evictEldest() {
+        Iterator<Writer> eldest = writers.values().iterator();
+        while (writers.size() > MAX_OPEN && eldest.hasNext()) {
+            Writer writer = eldest.next();
+            if (writer.inUse)
+                continue;
+            eldest.remove();
+            closeQuietly(writer);
+        }
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (writers) {
+            Iterator<Writer> it = writers.values().iterator();
+            while (it.hasNext()) {
+                Writer writer = it.next();
+                if (!writer.inUse && now - writer.lastUsed >= IDLE_MILLIS) {
+                    it.remove();
+                    closeQuietly(writer);
+                }
+            }
+        }
+    }
+
+    private static void closeAll() {
+        synchronized (writers) {
+            for (Writer writer : writers.values())
+                closeQuietly(writer);
+            writers.clear();
+        }
+    }
+
+    private static void closeQuietly(Writer writer) {
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            //nothing is left to report it to
+        }
+    }
+}
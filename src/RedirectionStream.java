@@ -0,0 +1,54 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+
+// Output stream of a command whose output is redirected to a file.
+// What is printed goes into the buffer of a writer taken from RedirectionPool as it is printed,
+// and closing the stream gives the writer back rather than closing the file.
+// Commands that move raw bytes (such as cat) can grab the underlying channel
+// and transfer straight into the file instead of going through the stream.
+class RedirectionStream extends PrintStream {
+    private final RedirectionPool.Writer writer;
+
+    private RedirectionStream(RedirectionPool.Writer writer) throws IOException {
+        super(new OutputStream() {
+            private boolean released = false;
+
+            @Override
+            public void write(int b) throws IOException {
+                writer.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writer.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!released) {
+                    released = true;
+                    RedirectionPool.release(writer);
+                }
+            }
+        }, false, "UTF-8");
+        this.writer = writer;
+    }
+
+    public static RedirectionStream open(String filename, boolean append) throws IOException {
+        RedirectionPool.Writer writer = RedirectionPool.acquire(filename, append);
+        try {
+            return new RedirectionStream(writer);
+        } catch (IOException ex) {
+            RedirectionPool.release(writer);
+            throw ex;
+        }
+    }
+
+    // Flushes anything already printed, so that bytes written to the channel come after it.
+    public FileChannel getChannel() throws IOException {
+        flush();
+        return writer.getChannel();
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+public class RmCommand implements Command {
+    @Override
+    public String getName() {
+        return "rm";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-r] arg1: file/Empty dir\nRemoves file/directory permanently, -r removes directories with their contents.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Collections.singletonList("-r");
+    }
+
+    @Override
+    public boolean changesFiles() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length < 1)
+            throw new ParsingException(String.format("%s: too few arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        boolean recursive = parser.hasOption("-r");
+        for (String arg : parser.getArguments()) {
+            File f = new File(arg);
+            if (f.isFile())
+                try {
+                    Files.delete(f.toPath());
+                    Metrics.touched(1);
+                } catch (Exception ignored) {
+                    throw new TerminalException(String.format("rm: cannot remove %s: IO error.", f.getName()));
+                }
+            else if (f.isDirectory() && recursive) {
+                FileTree.deleteTree("rm", f.toPath(), 0);
+            } else if (f.isDirectory()) {
+                throw new TerminalException(String.format("rm: cannot remove %s: Is a directory.", f.getName()));
+            } else {
+                throw new TerminalException(String.format("rm: cannot remove %s: No such file or directory.", f.getName()));
+            }
+        }
+    }
+}
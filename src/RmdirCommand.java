@@ -0,0 +1,51 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class RmdirCommand implements Command {
+    @Override
+    public String getName() {
+        return "rmdir";
+    }
+
+    @Override
+    public String getHelp() {
+        return "arg1 : dir\nRemoves directory at path dir, directory should be empty.";
+    }
+
+    @Override
+    public boolean changesFiles() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        if (parser.getArguments().length < 1)
+            throw new ParsingException(String.format("%s: too few arguments.", parser.getCmd()));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        for (String arg : parser.getArguments()) {
+            File f = new File(arg);
+            if (f.isFile()) {
+                throw new TerminalException(String.format("rmdir: cannot remove %s: Not a directory.", f.getName()));
+            } else if (f.isDirectory()) {
+                try {
+                    Files.delete(Paths.get(arg));
+                    Metrics.touched(1);
+                } catch (DirectoryNotEmptyException ignored) {
+                    throw new TerminalException(String.format("rmdir: cannot remove %s: Directory not empty.", f.getName()));
+                } catch (IOException ex) {
+                    throw new TerminalException(String.format("rmdir: cannot remove %s: IO error.", f.getName()));
+                }
+            } else {
+                throw new TerminalException(String.format("rmdir: cannot remove %s: No such file or directory.", f.getName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs scripts sent by clients, so that short invocations reuse one warm JVM instead of starting their own.
+// The server only listens on the loopback interface, and writes its port and a random token to a file
+// readable by its owner alone; a client must send the token before anything else.
+// Every client gets a thread and a session of its own, starting in the client's working directory,
+// and its output is streamed back as it is printed.
+//
+// A request is the token, the working directory and the script, of at most Client.MAX_SCRIPT_SIZE bytes;
+// a client sending a longer one is disconnected. The response is a series of frames:
+// the length of a chunk of output followed by the chunk, ended by a length of -1 and the exit status.
+class Server {
+    public static final int FRAME_SIZE = 64 * 1024;
+    static final int END_OF_OUTPUT = -1;
+
+    private final int jobs;
+    private final Path infoFile;
+    private final String token;
+    private final ServerSocketChannel channel;
+    private final ExecutorService pool = Executors.newCachedThreadPool(task -> {
+        Thread t = new Thread(task, "client");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // port 0 picks any free port. jobs is given to the batch of every client.
+    public Server(int port, int jobs, Path infoFile) throws IOException {
+        this.jobs = jobs;
+        this.infoFile = infoFile;
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : random)
+            hex.append(String.format("%02x", b));
+        token = hex.toString();
+
+        channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        writeInfo();
+    }
+
+    // Where the server tells clients how to reach it, -Ddabsh.daemon or ~/.dabsh_daemon
+    public static Path infoFile() {
+        String path = System.getProperty("dabsh.daemon");
+        return path != null ? Paths.get(path) : Paths.get(System.getProperty("user.home"), ".dabsh_daemon");
+    }
+
+    public int getPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    private void writeInfo() throws IOException {
+        Path temp = infoFile.resolveSibling(infoFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        try {
+            Files.createFile(temp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException ex) {
+            Files.createFile(temp);
+        }
+        Files.write(temp, (getPort() + " " + token + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, infoFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Accepts clients until the server is closed
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                SocketChannel client = channel.accept();
+                pool.submit(() -> handle(client));
+            }
+        } catch (IOException ex) {
+            if (channel.isOpen())
+                throw ex;
+        }
+    }
+
+    public void close() throws IOException {
+        channel.close();
+        pool.shutdownNow();
+        Files.deleteIfExists(infoFile);
+    }
+
+    private void handle(SocketChannel client) {
+        try (SocketChannel socket = client) {
+            socket.socket().setTcpNoDelay(true);
+            DataInputStream request = new DataInputStream(new BufferedInputStream(Channels.newInputStream(socket)));
+            if (!request.readUTF().equals(token))
+                return;
+            String workingDir = request.readUTF();
+            //the length comes from the client, and is not trusted any more than the rest of what it sends
+            int length = request.readInt();
+            if (length < 0 || length > Client.MAX_SCRIPT_SIZE)
+                return;
+            byte[] script = new byte[length];
+            request.readFully(script);
+
+            FrameOutputStream frames = new FrameOutputStream(Channels.newOutputStream(socket));
+            PrintStream out = new PrintStream(frames, false, "UTF-8");
+            Session session = new Session(workingDir, new ByteArrayInputStream(new byte[0]), out);
+            int failures = new Batch(session, jobs).run(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(script), StandardCharsets.UTF_8)));
+            out.flush();
+            frames.finish(failures == 0 ? 0 : 1);
+        } catch (IOException ignored) {
+            //the client went away, nobody is left to tell
+        }
+    }
+
+    // Cuts what is written into frames of at most FRAME_SIZE bytes, sending each as soon as it fills or is flushed
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[FRAME_SIZE];
+        private int count = 0;
+
+        FrameOutputStream(OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, FRAME_SIZE + 8));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length)
+                send();
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length)
+                    send();
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            send();
+            out.flush();
+        }
+
+        void finish(int status) throws IOException {
+            send();
+            out.writeInt(END_OF_OUTPUT);
+            out.writeInt(status);
+            out.flush();
+        }
+
+        private void send() throws IOException {
+            if (count == 0)
+                return;
+            out.writeInt(count);
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The state of one shell: its working and home directories, its environment variables and its console.
+// Nothing here is static, so any number of sessions can run in one JVM at the same time,
+// and a cd in one of them is never seen by another.
+class Session {
+    private final String homeDir;
+    private volatile String workingDir;
+    private final Map<String, String> env;
+    private final InputStream in;
+    private final PrintStream out;
+
+    // Starts in startDir, with a copy of the environment of the process.
+    // startDir also stands for the home directory when HOME is not set.
+    public Session(String startDir, InputStream in, PrintStream out) {
+        this.homeDir = startDir;
+        this.workingDir = startDir;
+        this.env = new ConcurrentHashMap<>(System.getenv());
+        this.in = in;
+        this.out = out;
+    }
+
+    // What ~ stands for: HOME, or the directory the session started in if HOME is not set
+    public String getHomeDir() {
+        String home = env.get("HOME");
+        return home == null || home.isEmpty() ? homeDir : home;
+    }
+
+    public String getWorkingDir() {
+        return workingDir;
+    }
+
+    public void setWorkingDir(String workingDir) {
+        this.workingDir = workingDir;
+    }
+
+    // The value of an environment variable, or null if it is not set
+    public String getEnv(String name) {
+        return env.get(name);
+    }
+
+    // Sets an environment variable for this session only, or unsets it if value is null
+    public void setEnv(String name, String value) {
+        if (value == null)
+            env.remove(name);
+        else
+            env.put(name, value);
+    }
+
+    // Where the user types
+    public InputStream getIn() {
+        return in;
+    }
+
+    // Where the user reads
+    public PrintStream getOut() {
+        return out;
+    }
+
+    // Makes path absolute against the working directory, with ~ standing for the home directory
+    public String resolve(String pathString) {
+        if (pathString.equals("~"))
+            return getHomeDir();
+        else if (pathString.startsWith("~/"))
+            return Paths.get(getHomeDir(), pathString.substring(2)).toString();
+        else if (pathString.equals("..")) {
+            Path tmp = Paths.get(workingDir).getParent();
+            if (tmp == null)
+                return workingDir;
+            else
+                return tmp.toString();
+        }
+
+        Path path = Paths.get(pathString);
+        if (path.isAbsolute()) {
+            return path.toString();
+        } else {
+            return Paths.get(workingDir, pathString).toString();
+        }
+    }
+
+    // How path is shown to the user: relative to the working directory if it is inside it, "." if it is the working directory
+    public String relativize(Path path) {
+        Path dir = Paths.get(workingDir);
+        if (path.equals(dir))
+            return ".";
+        return path.startsWith(dir) ? dir.relativize(path).toString() : path.toString();
+    }
+}
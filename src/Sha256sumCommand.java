@@ -0,0 +1,5 @@
+public class Sha256sumCommand extends ChecksumCommand {
+    public Sha256sumCommand() {
+        super("sha256sum", "SHA-256");
+    }
+}
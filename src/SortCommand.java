@@ -0,0 +1,147 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class SortCommand implements Command {
+    private static final Pattern MEMORY = Pattern.compile("(\\d+)([kMG]?)");
+    private static final long DEFAULT_MEMORY = 64L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return "sort";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-r] [-n] [-S memory] [arg1.n: files]\nDisplays the lines of all the files, or of the piped input if no files are given, sorted byte by byte. -r sorts in reverse, -n by the number each line starts with, -S sets how much memory to use before sorting on disk, in bytes or with k, M or G, default: 64M.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-r", "-n", "-S");
+    }
+
+    @Override
+    public List<String> getValueOptions() {
+        return Collections.singletonList("-S");
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        HeadCommand.checkFilter(parser, piped);
+        if (parser.hasOption("-S") && !MEMORY.matcher(parser.getOption("-S")).matches())
+            throw new ParsingException(String.format("sort: invalid memory size %s.", parser.getOption("-S")));
+    }
+
+    // Input bigger than the memory given is sorted in runs on disk, then merged, see ExternalSort
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        Comparator<byte[]> order = parser.hasOption("-n") ? SortCommand::compareNumbers : SortCommand::compareBytes;
+        if (parser.hasOption("-r"))
+            order = order.reversed();
+        try (ExternalSort sort = new ExternalSort(order, memory(parser))) {
+            long bytes = 0;
+            if (args.length == 0) {
+                try {
+                    bytes += read(stdin, sort);
+                } catch (IOException ex) {
+                    throw new TerminalException("sort: cannot read piped input: IO error");
+                }
+            }
+            for (String arg : args) {
+                Path path = Paths.get(arg);
+                if (Files.isDirectory(path))
+                    throw new TerminalException(String.format("sort: %s is a directory.", path.getFileName()));
+                try (InputStream in = Files.newInputStream(path)) {
+                    bytes += read(in, sort);
+                    Metrics.touched(1);
+                } catch (NoSuchFileException ex) {
+                    throw new TerminalException(String.format("sort: %s no such file or directory.", path.getFileName()));
+                }
+            }
+            OutputStream out = new BufferedOutputStream(stdout, BUFFER_SIZE);
+            sort.writeTo(out);
+            out.flush();
+            Metrics.written(bytes);
+        } catch (IOException ex) {
+            throw new TerminalException("sort: cannot sort: IO error.");
+        }
+    }
+
+    // Returns the number of bytes the lines will take once printed
+    private static long read(InputStream in, ExternalSort sort) throws IOException {
+        LineReader reader = new LineReader(in);
+        long ret = 0;
+        byte[] line;
+        while ((line = reader.next()) != null) {
+            sort.add(line);
+            ret += line.length + 1;
+        }
+        Metrics.read(reader.getBytes());
+        return ret;
+    }
+
+    private static long memory(Parser parser) {
+        if (!parser.hasOption("-S"))
+            return DEFAULT_MEMORY;
+        Matcher m = MEMORY.matcher(parser.getOption("-S"));
+        m.matches();
+        long ret = Long.parseLong(m.group(1));
+        switch (m.group(2)) {
+            case "k":
+                return ret * 1024;
+            case "M":
+                return ret * 1024 * 1024;
+            case "G":
+                return ret * 1024 * 1024 * 1024;
+            default:
+                return ret;
+        }
+    }
+
+    // Compares bytes as unsigned, which for UTF-8 is the order of the characters
+    static int compareBytes(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; ++i) {
+            int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0)
+                return diff;
+        }
+        return a.length - b.length;
+    }
+
+    // Lines that start with the same number, or none, are compared byte by byte
+    static int compareNumbers(byte[] a, byte[] b) {
+        int diff = Double.compare(number(a), number(b));
+        return diff != 0 ? diff : compareBytes(a, b);
+    }
+
+    // The number at the start of line, after any blanks, or 0 if it does not start with one
+    private static double number(byte[] line) {
+        int i = 0;
+        while (i < line.length && (line[i] == ' ' || line[i] == '\t'))
+            ++i;
+        boolean negative = i < line.length && line[i] == '-';
+        if (negative)
+            ++i;
+        double ret = 0;
+        for (; i < line.length && line[i] >= '0' && line[i] <= '9'; ++i)
+            ret = ret * 10 + (line[i] - '0');
+        if (i < line.length && line[i] == '.') {
+            double scale = 0.1;
+            for (++i; i < line.length && line[i] >= '0' && line[i] <= '9'; ++i, scale /= 10)
+                ret += (line[i] - '0') * scale;
+        }
+        return negative ? -ret : ret;
+    }
+}
@@ -0,0 +1,39 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class StatsCommand implements Command {
+    @Override
+    public String getName() {
+        return "stats";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[arg1: json | reset]\nDisplays how many times each command ran, its latency percentiles and the bytes and files it handled, json prints them as JSON, reset clears them.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        String[] args = parser.getArguments();
+        if (args.length > 1)
+            throw new ParsingException(String.format("%s: too many arguments.", parser.getCmd()));
+        if (args.length != 0 && !args[0].equals("json") && !args[0].equals("reset"))
+            throw new ParsingException(String.format("%s: %s: expected json or reset.", parser.getCmd(), args[0]));
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) {
+        String[] args = parser.getArguments();
+        if (args.length == 0)
+            Terminal.print(stdout, Metrics.table());
+        else if (args[0].equals("json"))
+            Terminal.print(stdout, Metrics.json());
+        else
+            Metrics.clear();
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+public class TailCommand implements Command {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return "tail";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-n lines] [-f] [arg1.n: files]\nDisplays the last 10 lines, or as many as -n gives, of each file, or of the piped input if no files are given. -f then goes on displaying whatever is added to the files, following them when they are truncated or replaced, until it is killed; it only runs in the background.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-n", "-f");
+    }
+
+    @Override
+    public List<String> getValueOptions() {
+        return Collections.singletonList("-n");
+    }
+
+    // Piped input ends on its own, so -f only matters for files
+    @Override
+    public boolean isEndless(Parser parser) {
+        return parser.hasOption("-f") && parser.getArguments().length > 0;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        HeadCommand.checkFilter(parser, piped);
+        HeadCommand.checkLines(parser);
+    }
+
+    // A file is read backwards from its end only as far as the lines printed go.
+    // Piped input has to be read to its end, keeping only the last lines.
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        long lines = HeadCommand.lines(parser);
+        if (args.length == 0) {
+            try {
+                tail(stdin, lines, stdout);
+            } catch (IOException ex) {
+                throw new TerminalException("tail: cannot read piped input: IO error");
+            }
+            return;
+        }
+        if (isEndless(parser)) {
+            follow(terminal.getSession(), args, lines, stdout);
+            return;
+        }
+        for (int i = 0; i < args.length && !stdout.checkError(); ++i) {
+            Path path = Paths.get(args[i]);
+            if (Files.isDirectory(path))
+                throw new TerminalException(String.format("tail: %s is a directory.", path.getFileName()));
+            HeadCommand.header(stdout, terminal.getSession(), args, i);
+            try {
+                CatCommand.transfer(path, start(path, lines), stdout);
+                Metrics.touched(1);
+            } catch (NoSuchFileException ex) {
+                throw new TerminalException(String.format("tail: %s no such file or directory.", path.getFileName()));
+            } catch (IOException ex) {
+                throw new TerminalException(String.format("tail: %s IO error.", path.getFileName()));
+            }
+        }
+    }
+
+    private static void follow(Session session, String[] args, long lines, PrintStream stdout) throws TerminalException {
+        try (FileFollower follower = new FileFollower(stdout, args.length > 1)) {
+            for (String arg : args) {
+                Path path = Paths.get(arg);
+                if (Files.isDirectory(path))
+                    throw new TerminalException(String.format("tail: %s is a directory.", path.getFileName()));
+                try {
+                    follower.add(path, session.relativize(path), start(path, lines));
+                } catch (NoSuchFileException ex) {
+                    throw new TerminalException(String.format("tail: %s no such file or directory.", path.getFileName()));
+                }
+            }
+            follower.run();
+        } catch (IOException ex) {
+            throw new TerminalException("tail: cannot follow the files: IO error.");
+        }
+    }
+
+    // The offset where the last lines of the file start, found by reading blocks backwards from its end
+    static long start(Path path, long lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (lines == 0)
+                return size;
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+            long position = size, count = 0;
+            while (position > 0) {
+                int length = (int) Math.min(BLOCK_SIZE, position);
+                position -= length;
+                block.clear().limit(length);
+                while (block.hasRemaining() && channel.read(block, position + block.position()) != -1) {
+                }
+                Metrics.read(length);
+                for (int i = block.position() - 1; i >= 0; --i) {
+                    //the '\n' at the very end closes the last line rather than starting a new one
+                    if (block.get(i) == '\n' && position + i != size - 1 && ++count == lines)
+                        return position + i + 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static void tail(InputStream stdin, long lines, PrintStream stdout) throws IOException {
+        LineReader reader = new LineReader(stdin);
+        Deque<byte[]> last = new ArrayDeque<>();
+        byte[] line;
+        while ((line = reader.next()) != null) {
+            if (lines == 0)
+                continue;
+            if (last.size() == lines)
+                last.poll();
+            last.add(line);
+        }
+        Metrics.read(reader.getBytes());
+        for (byte[] l : last) {
+            stdout.write(l, 0, l.length);
+            stdout.write('\n');
+            Metrics.written(l.length + 1);
+        }
+        stdout.flush();
+    }
+}
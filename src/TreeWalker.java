@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Walks directory trees on the common fork-join pool, for find and du.
+// Every directory is listed by its own task, and its entries are read in batches that are stat'ed in parallel,
+// so even a single huge directory is spread across all cores.
+// The lines the walk produces are printed as soon as they are found, in no particular order,
+// by the thread that started the walk; they pass through a bounded queue,
+// so a walk that outpaces its output waits for it rather than holding the whole tree in memory.
+// Links are not followed, except for the roots themselves.
+// A walker walks one root: its errors, and a walk stopped early, must not carry over to another.
+class TreeWalker {
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_SIZE = 4096;
+    private static final long POLL_MILLIS = 10;
+
+    // Decides what to print for the entries of the tree. It is called from many threads at once.
+    interface Visitor {
+        // Called for every file and directory, the roots included; returns the line to print for it, or null
+        String visit(Path path, BasicFileAttributes attrs);
+
+        // Called once everything inside dir has been visited, with the total size of dir and everything in it;
+        // returns the line to print for it, or null
+        default String leave(Path dir, long size) {
+            return null;
+        }
+    }
+
+    private final String cmd;
+    private final Visitor visitor;
+    private final BlockingQueue<String> lines = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+    private final LongAdder files = new LongAdder();
+    private volatile boolean stopped = false;
+
+    public TreeWalker(String cmd, Visitor visitor) {
+        this.cmd = cmd;
+        this.visitor = visitor;
+    }
+
+    // Walks root, printing the lines of the visitor to stdout, and returns the total size of root and everything in it.
+    // Stops early if stdout fails, such as when the rest of a pipeline has quit.
+    public long walk(Path root, PrintStream stdout) throws TerminalException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            throw new TerminalException(String.format("%s: cannot access %s: No such file or directory.", cmd, root.getFileName()));
+        }
+        ForkJoinTask<Long> task = ForkJoinPool.commonPool().submit(() -> visit(root, attrs));
+        List<String> batch = new ArrayList<>();
+        try {
+            while (true) {
+                String line = lines.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    //every line is queued before the task is done, so none can be left behind
+                    if (task.isDone() && lines.isEmpty())
+                        break;
+                    continue;
+                }
+                batch.add(line);
+                lines.drainTo(batch);
+                for (String l : batch) {
+                    stdout.println(l);
+                    Metrics.written(Terminal.utf8Length(l) + 1);
+                }
+                batch.clear();
+                if (stdout.checkError()) {
+                    stopped = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            stopped = true;
+            Thread.currentThread().interrupt();
+            throw new TerminalException(String.format("%s: interrupted.", cmd));
+        } finally {
+            Metrics.touched(files.sumThenReset());
+        }
+        long size = stopped ? 0 : task.join();
+        if (!errors.isEmpty())
+            throw new TerminalException(String.join("\n", errors));
+        return size;
+    }
+
+    private long visit(Path path, BasicFileAttributes attrs) {
+        files.increment();
+        emit(visitor.visit(path, attrs));
+        if (!attrs.isDirectory())
+            return attrs.size();
+        return new DirectoryTask(path, attrs.size()).invoke();
+    }
+
+    // Hands a line to the thread printing them, waiting while the queue is full
+    private void emit(String line) {
+        try {
+            while (line != null && !stopped && !lines.offer(line, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            }
+        } catch (InterruptedException ex) {
+            stopped = true;
+        }
+    }
+
+    // Lists a directory, leaving its entries to batch tasks
+    private class DirectoryTask extends RecursiveTask<Long> {
+        private final Path dir;
+        private final long size;
+
+        DirectoryTask(Path dir, long size) {
+            this.dir = dir;
+            this.size = size;
+        }
+
+        @Override
+        protected Long compute() {
+            List<BatchTask> tasks = new ArrayList<>();
+            List<Path> batch = new ArrayList<>(BATCH_SIZE);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    if (stopped)
+                        break;
+                    batch.add(child);
+                    if (batch.size() == BATCH_SIZE) {
+                        BatchTask task = new BatchTask(batch);
+                        task.fork();
+                        tasks.add(task);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException ex) {
+                errors.add(String.format("%s: cannot read directory %s: IO error.", cmd, dir));
+            }
+            long total = size + new BatchTask(batch).compute();
+            for (BatchTask task : tasks)
+                total += task.join();
+            emit(visitor.leave(dir, total));
+            return total;
+        }
+    }
+
+    // Reads the attributes of a batch of entries, and walks the directories among them
+    private class BatchTask extends RecursiveTask<Long> {
+        private final List<Path> paths;
+
+        BatchTask(List<Path> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        protected Long compute() {
+            long total = 0;
+            List<DirectoryTask> tasks = new ArrayList<>();
+            for (Path path : paths) {
+                if (stopped)
+                    break;
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException ex) {
+                    errors.add(String.format("%s: cannot access %s: IO error.", cmd, path));
+                    continue;
+                }
+                files.increment();
+                emit(visitor.visit(path, attrs));
+                if (attrs.isDirectory()) {
+                    DirectoryTask task = new DirectoryTask(path, attrs.size());
+                    task.fork();
+                    tasks.add(task);
+                } else {
+                    total += attrs.size();
+                }
+            }
+            for (DirectoryTask task : tasks)
+                total += task.join();
+            return total;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// A prefix tree of words, for completing command names.
+// Finding the words that start with a prefix walks only as many nodes as the prefix has characters,
+// then the words below it, so it does not depend on how many other words there are.
+class Trie {
+    private static final class Node {
+        // in character order, so words come out sorted
+        private final Map<Character, Node> children = new TreeMap<>();
+        private boolean word;
+    }
+
+    private final Node root = new Node();
+
+    public void add(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); ++i)
+            node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+        node.word = true;
+    }
+
+    // Every word that starts with prefix, sorted
+    public List<String> withPrefix(String prefix) {
+        List<String> ret = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; ++i)
+            node = node.children.get(prefix.charAt(i));
+        if (node != null)
+            collect(node, new StringBuilder(prefix), ret);
+        return ret;
+    }
+
+    private static void collect(Node node, StringBuilder word, List<String> ret) {
+        if (node.word)
+            ret.add(word.toString());
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            word.append(child.getKey());
+            collect(child.getValue(), word, ret);
+            word.setLength(word.length() - 1);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class WaitCommand implements Command {
+    @Override
+    public String getName() {
+        return "wait";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[arg1.n: jobs]\nWaits until the given background jobs, or all of them if omitted, have finished. Jobs that run until they are killed, such as tail -f, are not waited for.";
+    }
+
+    @Override
+    public boolean takesPaths() {
+        return false;
+    }
+
+    @Override
+    public boolean usesShell() {
+        return true;
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) {
+    }
+
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        Jobs jobs = terminal.getJobs();
+        if (parser.getArguments().length == 0) {
+            for (Jobs.Job job : jobs.list())
+                if (!job.isEndless())
+                    jobs.waitFor(job);
+            return;
+        }
+        for (String arg : parser.getArguments()) {
+            Jobs.Job job = jobs.get(arg);
+            if (job.isEndless())
+                throw new TerminalException(String.format("wait: job %d runs until it is killed.", job.getId()));
+            jobs.waitFor(job);
+        }
+    }
+}
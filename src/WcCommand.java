@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+public class WcCommand implements Command {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return "wc";
+    }
+
+    @Override
+    public String getHelp() {
+        return "[-l] [-c] [arg1.n: files]\nDisplays the number of lines and bytes in each file, or in the piped input if no files are given, and their total if there are several files. -l only displays the lines, -c only the bytes.";
+    }
+
+    @Override
+    public List<String> getOptions() {
+        return Arrays.asList("-l", "-c");
+    }
+
+    @Override
+    public void check(Parser parser, boolean piped) throws ParsingException {
+        HeadCommand.checkFilter(parser, piped);
+    }
+
+    // Counting only bytes of a file needs its size, not its contents
+    @Override
+    public void run(Terminal terminal, Parser parser, InputStream stdin, PrintStream stdout) throws TerminalException {
+        String[] args = parser.getArguments();
+        boolean both = !parser.hasOption("-l") && !parser.hasOption("-c");
+        boolean lines = both || parser.hasOption("-l"), bytes = both || parser.hasOption("-c");
+        if (args.length == 0) {
+            try {
+                long[] counts = count(stdin);
+                Terminal.print(stdout, format(counts, lines, bytes, null));
+            } catch (IOException ex) {
+                throw new TerminalException("wc: cannot read piped input: IO error");
+            }
+            return;
+        }
+        long[] total = new long[2];
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path))
+                throw new TerminalException(String.format("wc: %s is a directory.", path.getFileName()));
+            long[] counts;
+            try {
+                if (lines) {
+                    try (InputStream in = Files.newInputStream(path)) {
+                        counts = count(in);
+                    }
+                } else {
+                    counts = new long[]{0, Files.size(path)};
+                }
+                Metrics.touched(1);
+            } catch (NoSuchFileException ex) {
+                throw new TerminalException(String.format("wc: %s no such file or directory.", path.getFileName()));
+            } catch (IOException ex) {
+                throw new TerminalException(String.format("wc: %s IO error.", path.getFileName()));
+            }
+            total[0] += counts[0];
+            total[1] += counts[1];
+            Terminal.print(stdout, format(counts, lines, bytes, terminal.getSession().relativize(path)));
+        }
+        if (args.length > 1)
+            Terminal.print(stdout, format(total, lines, bytes, "total"));
+    }
+
+    // Returns the number of lines, then of bytes
+    private static long[] count(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long lines = 0, bytes = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes += read;
+            for (int i = 0; i < read; ++i)
+                if (buffer[i] == '\n')
+                    ++lines;
+        }
+        Metrics.read(bytes);
+        return new long[]{lines, bytes};
+    }
+
+    private static String format(long[] counts, boolean lines, boolean bytes, String name) {
+        StringBuilder ret = new StringBuilder();
+        if (lines)
+            ret.append(counts[0]);
+        if (bytes)
+            ret.append(ret.length() == 0 ? "" : " ").append(counts[1]);
+        if (name != null)
+            ret.append(' ').append(name);
+        return ret.toString();
+    }
+}
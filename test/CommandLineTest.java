@@ -0,0 +1,123 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CommandLineTest {
+    // The texts of the words of stage
+    private static List<String> words(CommandLine.Stage stage) {
+        List<String> ret = new ArrayList<>();
+        for (CommandLine.Word word : stage.getWords())
+            ret.add(word.getText());
+        return ret;
+    }
+
+    private static void assertInvalid(String input) {
+        try {
+            CommandLine.parse(input);
+            fail(input);
+        } catch (ParsingException expected) {
+        }
+    }
+
+    @Test
+    public void lexesWordsAndOperators() throws ParsingException {
+        Lexer lexer = new Lexer(" ls  -l|grep x>>out>err & ");
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("ls", lexer.getText());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("-l", lexer.getText());
+        assertEquals(Lexer.TokenType.Pipe, lexer.next());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("x", lexer.getText());
+        assertEquals(Lexer.TokenType.Append, lexer.next());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("out", lexer.getText());
+        assertEquals(Lexer.TokenType.Truncate, lexer.next());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals(Lexer.TokenType.Background, lexer.next());
+        assertEquals(Lexer.TokenType.End, lexer.next());
+        assertEquals(Lexer.TokenType.End, lexer.next());
+    }
+
+    @Test
+    public void removesQuotesAndKeepsOperatorsInside() throws ParsingException {
+        Lexer lexer = new Lexer("a\"b c\"d 'x|y>z&' plain");
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("ab cd", lexer.getText());
+        assertTrue(lexer.isQuoted());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("x|y>z&", lexer.getText());
+        assertTrue(lexer.isQuoted());
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("plain", lexer.getText());
+        assertFalse(lexer.isQuoted());
+    }
+
+    @Test
+    public void quotesOfOneKindHoldTheOther() throws ParsingException {
+        Lexer lexer = new Lexer("\"it's\" '\"x\"'");
+        lexer.next();
+        assertEquals("it's", lexer.getText());
+        lexer.next();
+        assertEquals("\"x\"", lexer.getText());
+    }
+
+    @Test
+    public void emptyQuotesAreAWord() throws ParsingException {
+        Lexer lexer = new Lexer("\"\"");
+        assertEquals(Lexer.TokenType.Word, lexer.next());
+        assertEquals("", lexer.getText());
+        assertTrue(lexer.isQuoted());
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsUnterminatedQuotes() throws ParsingException {
+        Lexer lexer = new Lexer("echo \"open");
+        lexer.next();
+        lexer.next();
+    }
+
+    @Test
+    public void parsesAPipelineWithARedirection() throws ParsingException {
+        CommandLine line = CommandLine.parse("cat a.txt | grep -i \"x y\" >> out.txt");
+        assertFalse(line.isBackground());
+        assertEquals(2, line.getStages().size());
+        CommandLine.Stage first = line.getStages().get(0), second = line.getStages().get(1);
+        assertEquals(Arrays.asList("cat", "a.txt"), words(first));
+        assertEquals(Parser.RedirectionType.NoRedirection, first.getRedirectionType());
+        assertNull(first.getRedirectionTarget());
+        assertEquals(Arrays.asList("grep", "-i", "x y"), words(second));
+        assertTrue(second.getWords().get(2).isQuoted());
+        assertEquals(Parser.RedirectionType.Append, second.getRedirectionType());
+        assertEquals("out.txt", second.getRedirectionTarget().getText());
+    }
+
+    @Test
+    public void parsesABackgroundLine() throws ParsingException {
+        CommandLine line = CommandLine.parse("tail -f log > copy &");
+        assertTrue(line.isBackground());
+        assertEquals(Parser.RedirectionType.Truncate, line.getStages().get(0).getRedirectionType());
+        assertFalse(CommandLine.parse("echo '&'").isBackground());
+    }
+
+    @Test
+    public void rejectsInvalidSyntax() {
+        assertInvalid("");
+        assertInvalid("   ");
+        assertInvalid("| ls");
+        assertInvalid("ls |");
+        assertInvalid("ls || wc");
+        assertInvalid("ls >");
+        assertInvalid("ls > a > b");
+        assertInvalid("ls > | wc");
+        assertInvalid("> out");
+        assertInvalid("&");
+        assertInvalid("ls & wc");
+        assertInvalid("ls && wc");
+    }
+}
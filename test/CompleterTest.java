@@ -0,0 +1,115 @@
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CompleterTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path dir;
+    private Session session;
+    private Completer completer;
+
+    // alpha.txt, alps.txt, beta.txt, .hidden, docs/ and docs/guide.md
+    @Before
+    public void files() throws Exception {
+        dir = temp.getRoot().toPath();
+        for (String name : Arrays.asList("alpha.txt", "alps.txt", "beta.txt", ".hidden"))
+            Files.createFile(dir.resolve(name));
+        Files.createDirectories(dir.resolve("docs"));
+        Files.createFile(dir.resolve("docs/guide.md"));
+        session = new Session(dir.toString(), new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+        completer = new Completer(session);
+    }
+
+    @Test
+    public void findsWordsByPrefixInOrder() {
+        Trie trie = new Trie();
+        for (String word : Arrays.asList("mv", "more", "mkdir", "md5sum", "ls", "m"))
+            trie.add(word);
+        assertEquals(Arrays.asList("m", "md5sum", "mkdir", "more", "mv"), trie.withPrefix("m"));
+        assertEquals(Arrays.asList("md5sum"), trie.withPrefix("md"));
+        assertEquals(Arrays.asList("ls", "m", "md5sum", "mkdir", "more", "mv"), trie.withPrefix(""));
+        assertEquals(Collections.emptyList(), trie.withPrefix("x"));
+        assertEquals(Collections.emptyList(), trie.withPrefix("lsx"));
+    }
+
+    @Test
+    public void addsWordsOnce() {
+        Trie trie = new Trie();
+        trie.add("cat");
+        trie.add("cat");
+        trie.add("ca");
+        assertEquals(Arrays.asList("ca", "cat"), trie.withPrefix("c"));
+    }
+
+    @Test
+    public void completesCommandNames() {
+        Completer.Completion completion = completer.completeCommand("he");
+        assertEquals(Arrays.asList("head", "help"), completion.getCandidates());
+        assertEquals("he", completion.getCommon());
+        assertEquals("history", completer.completeCommand("hi").getCommon());
+        assertEquals(Collections.emptyList(), completer.completeCommand("zz").getCandidates());
+        assertEquals("zz", completer.completeCommand("zz").getCommon());
+    }
+
+    @Test
+    public void completesPathsToWhatTheyHaveInCommon() {
+        Completer.Completion completion = completer.completePath("al");
+        assertEquals(Arrays.asList("alpha.txt", "alps.txt"), completion.getCandidates());
+        assertEquals("alp", completion.getCommon());
+        assertFalse(completion.isTruncated());
+        assertEquals("beta.txt", completer.completePath("b").getCommon());
+    }
+
+    @Test
+    public void completesDirectoriesAndGoesOnInside() {
+        Completer.Completion completion = completer.completePath("do");
+        assertEquals(Arrays.asList("docs/"), completion.getCandidates());
+        assertEquals("docs", completion.getCommon());
+        assertTrue(completion.isDirectory());
+        assertEquals("docs/guide.md", completer.completePath("docs/g").getCommon());
+    }
+
+    @Test
+    public void hidesDotFilesUnlessAskedFor() {
+        assertFalse(completer.completePath("").getCandidates().contains(".hidden"));
+        assertEquals(Arrays.asList(".hidden"), completer.completePath(".h").getCandidates());
+    }
+
+    @Test
+    public void completesFromTheHomeDirectory() {
+        session.setEnv("HOME", dir.resolve("docs").toString());
+        assertEquals("~/guide.md", completer.completePath("~/gu").getCommon());
+    }
+
+    @Test
+    public void leavesWordsWithoutMatchesAsTheyAre() {
+        Completer.Completion completion = completer.completePath("nothing");
+        assertEquals(Collections.emptyList(), completion.getCandidates());
+        assertEquals("nothing", completion.getCommon());
+        assertEquals("missing/x", completer.completePath("missing/x").getCommon());
+    }
+
+    @Test
+    public void listsNoMoreThanTheLimit() throws Exception {
+        Path many = Files.createDirectories(dir.resolve("many"));
+        for (int i = 0; i < Completer.MAX_CANDIDATES + 10; ++i)
+            Files.createFile(many.resolve(String.format("f%04d", i)));
+        Completer.Completion completion = completer.completePath("many/f");
+        assertEquals(Completer.MAX_CANDIDATES, completion.getCandidates().size());
+        assertTrue(completion.isTruncated());
+        assertEquals("many/f0", completion.getCommon());
+    }
+}
@@ -0,0 +1,108 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ExternalSortTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    // The given number of lines of random numbers, with repeats
+    private static List<String> lines(int lines) {
+        Random random = new Random(42);
+        List<String> ret = new ArrayList<>();
+        for (int i = 0; i < lines; ++i)
+            ret.add("line " + random.nextInt(lines / 2));
+        return ret;
+    }
+
+    // Sorts lines with a memory budget of budget bytes, checking that it spilled between minRuns and maxRuns runs,
+    // and that they are gone once it is closed
+    private static String sort(List<String> lines, long budget, Comparator<byte[]> order, int minRuns, int maxRuns) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExternalSort sort = new ExternalSort(order, budget)) {
+            for (String line : lines)
+                sort.add(line.getBytes(StandardCharsets.UTF_8));
+            assertTrue(String.valueOf(sort.getRuns()), sort.getRuns() >= minRuns && sort.getRuns() <= maxRuns);
+            sort.writeTo(out);
+            sort.close();
+            assertEquals(0, sort.getRuns());
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static String joined(List<String> lines) {
+        StringBuilder ret = new StringBuilder();
+        for (String line : lines)
+            ret.append(line).append('\n');
+        return ret.toString();
+    }
+
+    @Test
+    public void sortsInMemory() throws Exception {
+        List<String> lines = lines(1000);
+        String sorted = sort(lines, 1 << 20, SortCommand::compareBytes, 0, 0);
+        Collections.sort(lines);
+        assertEquals(joined(lines), sorted);
+    }
+
+    @Test
+    public void mergesSpilledRunsWithWhatIsLeftInMemory() throws Exception {
+        List<String> lines = lines(1000);
+        //a few dozen lines fit in the budget
+        String sorted = sort(lines, 2048, SortCommand::compareBytes, 10, 64);
+        Collections.sort(lines);
+        assertEquals(joined(lines), sorted);
+    }
+
+    @Test
+    public void mergesMoreRunsThanItOpensAtOnce() throws Exception {
+        List<String> lines = lines(2000);
+        //every few lines are a run of their own, far more than are merged at a time
+        String sorted = sort(lines, 128, SortCommand::compareBytes, 200, Integer.MAX_VALUE);
+        Collections.sort(lines);
+        assertEquals(joined(lines), sorted);
+    }
+
+    @Test
+    public void keepsEmptyLinesAndReverseOrder() throws Exception {
+        List<String> lines = Arrays.asList("b", "", "a", "", "c", "a");
+        String sorted = sort(lines, 64, Collections.reverseOrder(SortCommand::compareBytes), 1, Integer.MAX_VALUE);
+        assertEquals("c\nb\na\na\n\n\n", sorted);
+    }
+
+    @Test
+    public void comparesBytesAsUnsigned() {
+        //é is 0xc3 0xa9 in UTF-8, which comes after every ASCII byte
+        assertTrue(SortCommand.compareBytes("z".getBytes(StandardCharsets.UTF_8), "é".getBytes(StandardCharsets.UTF_8)) < 0);
+        assertTrue(SortCommand.compareBytes("ab".getBytes(StandardCharsets.UTF_8), "abc".getBytes(StandardCharsets.UTF_8)) < 0);
+    }
+
+    @Test
+    public void comparesNumbersByValue() {
+        List<String> lines = Arrays.asList("10 x", "9", "-2", "1.5", "  3", "abc", "1.25");
+        List<byte[]> bytes = new ArrayList<>();
+        for (String line : lines)
+            bytes.add(line.getBytes(StandardCharsets.UTF_8));
+        bytes.sort(SortCommand::compareNumbers);
+        List<String> sorted = new ArrayList<>();
+        for (byte[] line : bytes)
+            sorted.add(new String(line, StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("-2", "abc", "1.25", "1.5", "  3", "9", "10 x"), sorted);
+    }
+
+    @Test
+    public void sortsFilesOnDiskThroughTheCommand() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        List<String> lines = lines(3000);
+        TestShell.write(dir.resolve("in.txt"), joined(lines));
+        Collections.sort(lines);
+        assertEquals(joined(lines), TestShell.run(dir, "sort -S 4k in.txt"));
+    }
+}
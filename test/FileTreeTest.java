@@ -0,0 +1,80 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class FileTreeTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    // a/x.txt, a/b/y.txt, a/b/c/z.txt and an empty a/e
+    private Path tree() throws IOException {
+        Path root = temp.newFolder("a").toPath();
+        Files.createDirectories(root.resolve("b/c"));
+        Files.createDirectories(root.resolve("e"));
+        TestShell.write(root.resolve("x.txt"), "x\n");
+        TestShell.write(root.resolve("b/y.txt"), "yy\n");
+        TestShell.write(root.resolve("b/c/z.txt"), "zzz\n");
+        return root;
+    }
+
+    @Test
+    public void copiesEveryFileAndDirectory() throws Exception {
+        Path source = tree();
+        Path target = temp.getRoot().toPath().resolve("copy");
+        FileTree tree = new FileTree("cp", 2);
+        assertEquals(2 + 3 + 4, tree.copy(source, target));
+        assertEquals("x\n", TestShell.read(target.resolve("x.txt")));
+        assertEquals("yy\n", TestShell.read(target.resolve("b/y.txt")));
+        assertEquals("zzz\n", TestShell.read(target.resolve("b/c/z.txt")));
+        assertTrue(Files.isDirectory(target.resolve("e")));
+        //the source is left as it was
+        assertEquals("zzz\n", TestShell.read(source.resolve("b/c/z.txt")));
+    }
+
+    @Test
+    public void copiesWithVerification() throws Exception {
+        Path source = tree();
+        Path target = temp.getRoot().toPath().resolve("copy");
+        assertEquals(9, new FileTree("cp", 0, true).copy(source, target));
+        assertEquals("yy\n", TestShell.read(target.resolve("b/y.txt")));
+    }
+
+    @Test(expected = TerminalException.class)
+    public void refusesToCopyIntoItself() throws Exception {
+        Path source = tree();
+        new FileTree("cp", 1).copy(source, source.resolve("b/inside"));
+    }
+
+    @Test
+    public void deletesEverything() throws Exception {
+        Path root = tree();
+        FileTree tree = new FileTree("rm", 2);
+        tree.delete(root);
+        assertFalse(Files.exists(root));
+        //three files and four directories
+        assertEquals(7, tree.getFiles());
+    }
+
+    @Test
+    public void reportsWhatCannotBeCopied() throws Exception {
+        Path source = tree();
+        Path target = temp.getRoot().toPath().resolve("copy");
+        //a file where a directory of the copy has to go
+        Files.createDirectories(target);
+        TestShell.write(target.resolve("b"), "in the way\n");
+        try {
+            new FileTree("cp", 1).copy(source, target);
+            fail();
+        } catch (TerminalException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("cp: "));
+        }
+        //what could be copied was
+        assertEquals("x\n", TestShell.read(target.resolve("x.txt")));
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GlobTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path root;
+
+    // a.txt, b.txt, c.log, log1.txt, logx.txt, src/Main.java, src/util/Glob.java, src/util/deep/X.java
+    private void files() throws IOException {
+        root = temp.getRoot().toPath();
+        Files.createDirectories(root.resolve("src/util/deep"));
+        for (String name : Arrays.asList("a.txt", "b.txt", "c.log", "log1.txt", "logx.txt",
+                "src/Main.java", "src/util/Glob.java", "src/util/deep/X.java"))
+            Files.createFile(root.resolve(name));
+    }
+
+    // The matches of pattern under root, relative to it
+    private List<String> expand(String pattern) throws IOException {
+        List<String> ret = new ArrayList<>();
+        for (Path path : Glob.compile(pattern).expand(root))
+            ret.add(root.relativize(path).toString());
+        return ret;
+    }
+
+    @Test
+    public void tellsPatternsFromPaths() {
+        assertTrue(Glob.isPattern("*.txt"));
+        assertTrue(Glob.isPattern("log?.txt"));
+        assertTrue(Glob.isPattern("log[0-9].txt"));
+        assertTrue(Glob.isPattern("{a,b}.txt"));
+        assertFalse(Glob.isPattern("dir/file.txt"));
+    }
+
+    @Test
+    public void rejectsMalformedPatterns() {
+        assertFalse(Glob.isValid("log[0-9.txt"));
+        assertTrue(Glob.isValid("log[0-9].txt"));
+    }
+
+    @Test
+    public void keepsTheBaseBeforeTheFirstWildcard() {
+        assertEquals("", Glob.compile("*.txt").getBase());
+        assertEquals("src/util", Glob.compile("src/util/*.java").getBase());
+        assertEquals("/", Glob.compile("/*").getBase());
+    }
+
+    @Test
+    public void cachesCompiledPatterns() {
+        assertSame(Glob.compile("*.cached"), Glob.compile("*.cached"));
+    }
+
+    @Test
+    public void matchesOneLevel() throws IOException {
+        files();
+        assertEquals(Arrays.asList("a.txt", "b.txt", "log1.txt", "logx.txt"), expand("*.txt"));
+        assertEquals(Arrays.asList("log1.txt", "logx.txt"), expand("log?.txt"));
+        assertEquals(Arrays.asList("log1.txt"), expand("log[0-9].txt"));
+        assertEquals(Arrays.asList("a.txt", "c.log"), expand("{a.txt,c.log}"));
+        assertEquals(Arrays.asList(), expand("*.none"));
+    }
+
+    @Test
+    public void matchesEveryLevelBelowDoubleStar() throws IOException {
+        files();
+        assertEquals(Arrays.asList("src/Main.java", "src/util/Glob.java", "src/util/deep/X.java"), expand("**/*.java"));
+    }
+
+    @Test
+    public void matchesAFixedNumberOfLevels() throws IOException {
+        files();
+        assertEquals(Arrays.asList("src/util/Glob.java"), expand("*/*/*.java"));
+    }
+}
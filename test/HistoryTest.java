@@ -0,0 +1,160 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HistoryTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path file() {
+        return temp.getRoot().toPath().resolve("history");
+    }
+
+    private History history(String... lines) {
+        History history = new History(file());
+        for (String line : lines)
+            history.add(line);
+        return history;
+    }
+
+    // Writes lines numbered from 1 to count, as "cmd <number>"
+    private void writeLines(int count) throws Exception {
+        try (BufferedWriter out = Files.newBufferedWriter(file(), StandardCharsets.UTF_8)) {
+            for (int i = 1; i <= count; ++i) {
+                out.write("cmd " + i);
+                out.write('\n');
+            }
+        }
+    }
+
+    @Test
+    public void numbersEntriesAndSkipsBlankAndRepeatedLines() {
+        History history = history("ls", "ls", "  ", "cd /tmp", "ls");
+        assertEquals(1, history.first());
+        assertEquals(3, history.last());
+        assertEquals("ls", history.get(1));
+        assertEquals("cd /tmp", history.get(2));
+        assertEquals("ls", history.get(3));
+    }
+
+    @Test
+    public void keepsEntriesAcrossSessions() throws Exception {
+        History first = history("ls -l", "grep x a.txt");
+        first.close();
+        History second = history("grep x a.txt", "wc a.txt");
+        assertEquals(Arrays.asList("ls -l", "grep x a.txt", "wc a.txt"),
+                Arrays.asList(second.get(1), second.get(2), second.get(3)));
+        second.close();
+        assertEquals(Arrays.asList("ls -l", "grep x a.txt", "grep x a.txt", "wc a.txt"), Files.readAllLines(file()));
+    }
+
+    @Test
+    public void searchesBackwardsFromAnEntry() {
+        History history = history("cat a.txt", "grep beta b.txt", "ls", "grep alpha a.txt");
+        assertEquals(4, history.search("grep", Integer.MAX_VALUE));
+        assertEquals(2, history.search("grep", 4));
+        assertEquals(-1, history.search("grep", 2));
+        assertEquals(1, history.search("a.", 4));
+        assertEquals(-1, history.search("nothing", Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void searchesThroughTheIndexOnceItIsBuilt() throws Exception {
+        writeLines(5000);
+        History history = history();
+        //searches go through every entry until the index is done
+        assertEquals(4321, history.search("cmd 4321", Integer.MAX_VALUE));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!history.isIndexed() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(history.isIndexed());
+        assertEquals(4321, history.search("cmd 4321", Integer.MAX_VALUE));
+        assertEquals(1432, history.search("d 1432", 4321));
+        assertEquals(-1, history.search("cmd 50001", Integer.MAX_VALUE));
+        //entries added after indexing are found too
+        history.add("echo fresh");
+        assertEquals(5001, history.search("fresh", Integer.MAX_VALUE));
+        assertEquals(4999, history.search("99", 5000));
+    }
+
+    @Test
+    public void findsEventsByNumberAndPrefix() {
+        History history = history("ls", "grep x a.txt", "wc a.txt");
+        assertEquals("wc a.txt", history.find("!"));
+        assertEquals("grep x a.txt", history.find("2"));
+        assertEquals("grep x a.txt", history.find("-2"));
+        assertEquals("grep x a.txt", history.find("gr"));
+        assertNull(history.find("4"));
+        assertNull(history.find("0"));
+        assertNull(history.find("cat"));
+    }
+
+    @Test
+    public void expandsEventDesignators() throws Exception {
+        History history = history("ls", "grep x a.txt", "wc a.txt");
+        assertEquals("wc a.txt", history.expand("!!"));
+        assertEquals("grep x a.txt | more", history.expand("!2 | more"));
+        assertEquals("grep x a.txt > out.txt", history.expand("!gr > out.txt"));
+        assertEquals("ls&", history.expand("!-3&"));
+        //lines without a designator are left alone
+        assertEquals("ls", history.expand("ls"));
+        assertEquals("! x", history.expand("! x"));
+        assertEquals("!", history.expand("!"));
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsUnknownEvents() throws Exception {
+        history("ls").expand("!cat");
+    }
+
+    @Test
+    public void compactsAFileOfManyMoreLinesThanAreKept() throws Exception {
+        int lines = 3 * History.MAX_ENTRIES;
+        writeLines(lines);
+        History history = history();
+        //only the last MAX_ENTRIES lines are read, numbered from 1
+        assertEquals(History.MAX_ENTRIES, history.last());
+        assertEquals("cmd " + (lines - History.MAX_ENTRIES + 1), history.get(1));
+        assertEquals("cmd " + lines, history.get(history.last()));
+        List<String> kept = Files.readAllLines(file());
+        assertEquals(History.MAX_ENTRIES, kept.size());
+        assertEquals("cmd " + lines, kept.get(kept.size() - 1));
+    }
+
+    @Test
+    public void keepsWhatAnotherShellAppendsWhileCompacting() throws Exception {
+        writeLines(4 * History.MAX_ENTRIES);
+        History other = new History(file());
+        AtomicBoolean compacted = new AtomicBoolean();
+        AtomicInteger appended = new AtomicInteger();
+        //appends one line at a time for as long as the compaction goes on
+        Thread appender = new Thread(() -> {
+            while (!compacted.get()) {
+                other.add("other " + appended.get());
+                other.flush();
+                appended.incrementAndGet();
+            }
+        });
+        appender.start();
+        //the first use reads the file and compacts it
+        history().first();
+        compacted.set(true);
+        appender.join();
+        Set<String> kept = new HashSet<>(Files.readAllLines(file()));
+        for (int i = 0; i < appended.get(); ++i)
+            assertTrue("other " + i, kept.contains("other " + i));
+    }
+}
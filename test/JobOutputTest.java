@@ -0,0 +1,64 @@
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JobOutputTest {
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void keepsOutputUntilDrained() throws Exception {
+        JobOutput output = new JobOutput();
+        output.write(bytes("one\n"));
+        output.write('2');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.drainTo(out);
+        assertEquals("one\n2", out.toString("UTF-8"));
+        //what was shown is forgotten
+        out.reset();
+        output.drainTo(out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void spillsPastTheMemoryLimitAndKeepsTheOrder() throws Exception {
+        JobOutput output = new JobOutput();
+        byte[] chunk = new byte[100_000];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 30; ++i) {
+            Arrays.fill(chunk, (byte) ('a' + i % 26));
+            output.write(chunk);
+            expected.write(chunk);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.drainTo(out);
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+        //and starts over in memory
+        output.write(bytes("after"));
+        out.reset();
+        output.drainTo(out);
+        assertEquals("after", out.toString("UTF-8"));
+        output.close();
+    }
+
+    @Test
+    public void sendsEverythingStraightToAnAttachedStream() throws Exception {
+        JobOutput output = new JobOutput();
+        output.write(bytes("kept "));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.attach(out);
+        assertEquals("kept ", out.toString("UTF-8"));
+        output.write(bytes("live "));
+        assertEquals("kept live ", out.toString("UTF-8"));
+        output.detach();
+        output.write(bytes("later"));
+        assertEquals("kept live ", out.toString("UTF-8"));
+        output.drainTo(out);
+        assertEquals("kept live later", out.toString("UTF-8"));
+    }
+}
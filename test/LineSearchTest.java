@@ -0,0 +1,107 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.Assert.*;
+
+public class LineSearchTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    // The matching lines of the buffers, searched one after the other as one input, as "number:line"
+    private static List<String> search(LineSearch search, String... buffers) throws Exception {
+        List<String> ret = new ArrayList<>();
+        LineSearch.Search state = search.newSearch(true);
+        for (String buffer : buffers)
+            state.lines(ByteBuffer.wrap(buffer.getBytes(StandardCharsets.UTF_8)), (data, start, end, number) -> {
+                byte[] line = new byte[end - start];
+                for (int i = start; i < end; ++i)
+                    line[i - start] = data.get(i);
+                ret.add(number + ":" + new String(line, StandardCharsets.UTF_8));
+            });
+        return ret;
+    }
+
+    private static final String TEXT = "alpha\nBeta gamma\nbeta\ndelta beta\nepsilon\n";
+
+    @Test
+    public void findsAFixedString() throws Exception {
+        LineSearch search = new LineSearch("beta", true, false);
+        assertEquals(Arrays.asList("3:beta", "4:delta beta"), search(search, TEXT));
+    }
+
+    @Test
+    public void foldsCaseOfAFixedString() throws Exception {
+        LineSearch search = new LineSearch("BETA", true, true);
+        assertEquals(Arrays.asList("2:Beta gamma", "3:beta", "4:delta beta"), search(search, TEXT));
+    }
+
+    @Test
+    public void findsARegularExpression() throws Exception {
+        assertEquals(Arrays.asList("1:alpha", "3:beta", "4:delta beta"), search(new LineSearch("^[a-z]+a$|ta b", false, false), TEXT));
+        assertEquals(Arrays.asList("2:Beta gamma", "3:beta"), search(new LineSearch("^beta", false, true), TEXT));
+    }
+
+    @Test
+    public void takesRegexCharactersLiterallyWhenFixed() throws Exception {
+        LineSearch search = new LineSearch("a.c", true, false);
+        assertEquals(Arrays.asList("2:a.c"), search(search, "abc\na.c\n"));
+    }
+
+    @Test
+    public void foldsCaseOfNonAsciiText() throws Exception {
+        LineSearch search = new LineSearch("ÉTÉ", true, true);
+        assertEquals(Arrays.asList("2:un été", "3:ÉTÉ"), search(search, "hiver\nun été\nÉTÉ\n"));
+    }
+
+    @Test
+    public void matchesAtTheEdgesOfLinesAndBuffers() throws Exception {
+        LineSearch search = new LineSearch("ab", true, false);
+        assertEquals(Arrays.asList("1:ab", "2:xab", "3:abx", "4:ab"), search(search, "ab\nxab\nabx\nab"));
+        assertEquals(Arrays.asList(), search(search, "a\nb\n"));
+    }
+
+    @Test
+    public void skipsPastPartialMatches() throws Exception {
+        //every shift lands on a byte of the pattern, and only the last try matches
+        LineSearch search = new LineSearch("abab", true, false);
+        assertEquals(Arrays.asList("1:aabaabababb"), search(search, "aabaabababb\n"));
+    }
+
+    @Test
+    public void keepsCountingLinesAcrossBuffers() throws Exception {
+        for (boolean fixed : new boolean[]{true, false}) {
+            LineSearch search = new LineSearch("beta", fixed, false);
+            assertEquals(Arrays.asList("3:beta", "4:delta beta"), search(search, "alpha\nBeta gamma\n", "beta\n", "delta beta\nepsilon\n"));
+        }
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void rejectsInvalidRegularExpressions() {
+        new LineSearch("a[", false, false);
+    }
+
+    @Test
+    public void grepsMappedFilesLineByLine() throws Exception {
+        //past the size where files are mapped rather than read
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 20000; ++i)
+            text.append(i % 1000 == 0 ? "needle " + i : "hay " + i).append('\n');
+        Path file = temp.getRoot().toPath().resolve("big.txt");
+        TestShell.write(file, text.toString());
+        String out = TestShell.run(temp.getRoot().toPath(), "grep -n -F needle big.txt");
+        String[] lines = out.split("\n");
+        assertEquals(20, lines.length);
+        assertEquals("1000:needle 1000", lines[0]);
+        assertEquals("20000:needle 20000", lines[19]);
+        assertEquals("20\n", TestShell.run(temp.getRoot().toPath(), "grep -c -i NEEDLE big.txt"));
+    }
+}
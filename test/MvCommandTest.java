@@ -0,0 +1,70 @@
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class MvCommandTest {
+    // A tmpfs that is usually another file system than the temporary folder
+    private static final Path OTHER_FILE_SYSTEM = Paths.get("/dev/shm");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path other;
+
+    @After
+    public void removeOther() throws Exception {
+        if (other != null && Files.exists(other))
+            new FileTree("rm", 1).delete(other);
+    }
+
+    // A directory on another file system than the temporary folder, or the test is skipped
+    private Path otherFileSystem() throws IOException {
+        Assume.assumeTrue(Files.isDirectory(OTHER_FILE_SYSTEM) && Files.isWritable(OTHER_FILE_SYSTEM));
+        Assume.assumeFalse(Files.getFileStore(OTHER_FILE_SYSTEM).equals(Files.getFileStore(temp.getRoot().toPath())));
+        other = Files.createTempDirectory(OTHER_FILE_SYSTEM, "mv-test");
+        return other;
+    }
+
+    @Test
+    public void renamesOnTheSameFileSystem() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        TestShell.write(dir.resolve("a.txt"), "a\n");
+        String out = TestShell.run(dir, "mv -v a.txt b.txt");
+        assertTrue(out, out.startsWith("mv: renamed"));
+        assertFalse(Files.exists(dir.resolve("a.txt")));
+        assertEquals("a\n", TestShell.read(dir.resolve("b.txt")));
+    }
+
+    @Test
+    public void copiesAFileAcrossFileSystems() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        Path target = otherFileSystem();
+        TestShell.write(dir.resolve("a.txt"), "across\n");
+        String out = TestShell.run(dir, "mv -v a.txt " + target);
+        assertTrue(out, out.contains("across file systems (7 bytes)"));
+        assertFalse(Files.exists(dir.resolve("a.txt")));
+        assertEquals("across\n", TestShell.read(target.resolve("a.txt")));
+    }
+
+    @Test
+    public void copiesATreeAcrossFileSystems() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        Path target = otherFileSystem();
+        Files.createDirectories(dir.resolve("d/sub"));
+        TestShell.write(dir.resolve("d/x.txt"), "x\n");
+        TestShell.write(dir.resolve("d/sub/y.txt"), "yy\n");
+        TestShell.run(dir, "mv -r d " + target);
+        assertFalse(Files.exists(dir.resolve("d")));
+        assertEquals("x\n", TestShell.read(target.resolve("d/x.txt")));
+        assertEquals("yy\n", TestShell.read(target.resolve("d/sub/y.txt")));
+    }
+}
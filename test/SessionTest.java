@@ -0,0 +1,56 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class SessionTest {
+    private static Session session(String dir) {
+        return new Session(dir, new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void startsWithACopyOfTheEnvironment() {
+        Session session = session("/start");
+        for (String name : System.getenv().keySet())
+            assertEquals(System.getenv(name), session.getEnv(name));
+    }
+
+    @Test
+    public void keepsItsEnvironmentToItself() {
+        Session first = session("/start"), second = session("/start");
+        first.setEnv("DABSH_TEST", "1");
+        assertEquals("1", first.getEnv("DABSH_TEST"));
+        assertNull(second.getEnv("DABSH_TEST"));
+        assertNull(System.getenv("DABSH_TEST"));
+        first.setEnv("DABSH_TEST", null);
+        assertNull(first.getEnv("DABSH_TEST"));
+    }
+
+    @Test
+    public void resolvesTildeAgainstHome() {
+        Session session = session("/start");
+        session.setEnv("HOME", "/home/user");
+        assertEquals("/home/user", session.resolve("~"));
+        assertEquals(Paths.get("/home/user/docs").toString(), session.resolve("~/docs"));
+        assertEquals("/home/user", session.getHomeDir());
+        //without HOME, ~ is where the session started
+        session.setEnv("HOME", null);
+        assertEquals("/start", session.resolve("~"));
+    }
+
+    @Test
+    public void resolvesAgainstTheWorkingDirectory() {
+        Session session = session("/start");
+        session.setWorkingDir("/start/sub");
+        assertEquals(Paths.get("/start/sub/a.txt").toString(), session.resolve("a.txt"));
+        assertEquals("/start", session.resolve(".."));
+        assertEquals("/abs", session.resolve("/abs"));
+        assertEquals("a.txt", session.relativize(Paths.get("/start/sub/a.txt")));
+        assertEquals(".", session.relativize(Paths.get("/start/sub")));
+        assertEquals("/elsewhere", session.relativize(Paths.get("/elsewhere")));
+    }
+}
@@ -0,0 +1,30 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// What the tests share: running a command line in a session of its own, and writing and reading small files
+final class TestShell {
+    private TestShell() {
+    }
+
+    // Runs line in a session started in dir, and returns what it printed
+    static String run(Path dir, String line) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, "UTF-8");
+        Session session = new Session(dir.toString(), new ByteArrayInputStream(new byte[0]), out);
+        new Pipeline(new Terminal(session, false), line).run(out);
+        return buffer.toString("UTF-8");
+    }
+
+    static void write(Path path, String text) throws IOException {
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}